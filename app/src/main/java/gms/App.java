@@ -2,13 +2,33 @@ package gms;
 
 import gms.cli.CLI;
 import gms.core.Institute;
+import gms.io.CheckpointManager;
+import gms.io.Journal;
 import gms.io.PersistenceManager;
+import java.io.IOException;
 
 public class App {
   public static void main(String[] args) {
     Institute inst = new Institute();
-    // load previous state (if any)
-    PersistenceManager.loadCSV(inst, "data");
-    new CLI(inst).run();
+    // load previous state (if any): last checkpoint plus the journal
+    long start = System.nanoTime();
+    Journal journal;
+    try {
+      journal = PersistenceManager.recover(inst, "data");
+    } catch (IOException e) {
+      // Running on what was recovered so far would let the next save
+      // overwrite the rest, so stop with the files untouched
+      System.err.println("Recovery failed: " + e.getMessage());
+      System.err.println("Fix or move the data directory, then start again.");
+      System.exit(1);
+      return;
+    }
+    System.out.printf("Recovered %d students (%d journal records replayed) in %.0f ms%n", inst.size(),
+        journal.replayed(), (System.nanoTime() - start) / 1e6);
+
+    CheckpointManager checkpoints = new CheckpointManager(inst, "data", journal);
+    // A long replay means the next restart would be slow too
+    checkpoints.maybeCheckpoint();
+    new CLI(inst, journal, checkpoints).run();
   }
 }
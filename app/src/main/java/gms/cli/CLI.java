@@ -3,19 +3,37 @@ package gms.cli;
 import gms.core.Exam;
 import gms.core.Institute;
 import gms.core.Student;
+import gms.dsa.ArrayList;
+import gms.io.CheckpointManager;
+import gms.io.Journal;
+import gms.io.PersistenceManager;
 import gms.utils.Benchmark;
-import gms.dsa.DoublyLinkedList;
-import gms.dsa.MergeSort;
 
+import java.io.IOException;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Scanner;
 
 public class CLI {
   private final Institute inst;
+  // Records every change; Save commits it (null: Save rewrites everything)
+  private final Journal journal;
+  // Snapshots the data after a save once the journal is long (may be null)
+  private final CheckpointManager checkpoints;
   private final Scanner in = new Scanner(System.in);
 
   public CLI(Institute inst) {
+    this(inst, null);
+  }
+
+  public CLI(Institute inst, Journal journal) {
+    this(inst, journal, null);
+  }
+
+  public CLI(Institute inst, Journal journal, CheckpointManager checkpoints) {
     this.inst = inst;
+    this.journal = journal;
+    this.checkpoints = checkpoints;
   }
 
   public void run() {
@@ -101,12 +119,16 @@ public class CLI {
         System.out.println("\n──────────────────── REPORTS ───────────────────────");
         System.out.println("10. Show Student Report");
         System.out.println("11. Show Subject Marks History");
+        System.out.println("12. Show Top K Students by CGPA");
+        System.out.println("13. Show Bottom K Students by CGPA (At Risk)");
+        System.out.println("14. Search Students (Name / RegID Prefix)");
+        System.out.println("15. Show Subject Report");
       }
 
       System.out.println("\n──────────────────── TOOLS ─────────────────────────");
-      System.out.println("12. Save Data");
-      System.out.println("13. Delete Data");
-      System.out.println("14. Exit");
+      System.out.println("16. Save Data");
+      System.out.println("17. Delete Data");
+      System.out.println("18. Exit");
       System.out.println("────────────────────────────────────────────────────");
 
       int choice = readInt("Enter choice: ");
@@ -145,19 +167,33 @@ public class CLI {
           showHistory();
           break;
         case 12:
-          if (gms.io.PersistenceManager.saveCSV(inst, "data")) {
+          showRanked(true);
+          break;
+        case 13:
+          showRanked(false);
+          break;
+        case 14:
+          search();
+          break;
+        case 15:
+          showSubjectReport();
+          break;
+        case 16:
+          if (save()) {
             System.out.println("Successfully saved data.");
           }
           waitEnter();
           break;
-        case 13:
-          if (gms.io.PersistenceManager.deleteCSV("data")) {
+        case 17:
+          if (delete()) {
             System.out.println("Successfully deleted data");
           }
           waitEnter();
           break;
-        case 14:
+        case 18:
           System.out.println("Exiting...");
+          if (checkpoints != null)
+            checkpoints.close();
           System.exit(0);
         default:
           System.out.println("Invalid choice.");
@@ -165,6 +201,30 @@ public class CLI {
     }
   }
 
+  // Journal commit: O(changes since the last save)
+  private boolean save() {
+    if (journal == null)
+      return PersistenceManager.saveBinary(inst, "data") && PersistenceManager.saveCSV(inst, "data");
+    try {
+      journal.commit();
+      if (checkpoints != null)
+        checkpoints.maybeCheckpoint();
+      return true;
+    } catch (IOException e) {
+      System.err.println("Save failed: " + e.getMessage());
+      return false;
+    }
+  }
+
+  private boolean delete() {
+    if (journal == null)
+      return PersistenceManager.deleteBinary("data") & PersistenceManager.deleteCSV("data");
+    // A checkpoint still being written would bring the snapshot back
+    if (checkpoints != null)
+      checkpoints.awaitIdle();
+    return PersistenceManager.deleteAll("data", journal);
+  }
+
   private void addStudent() {
     String name = readLine("Enter student's name: ");
     String id = readLine("Enter registration ID: ");
@@ -190,6 +250,8 @@ public class CLI {
     System.out.println("ID: " + s.id());
     System.out.println("Name: " + s.name());
     System.out.println("Semester (stored): " + s.semester());
+    System.out.printf("CGPA: %.2f | Rank: %d of %d | Percentile: %.1f%n", s.getCGPA(), inst.rankOf(id), inst.size(),
+        inst.percentileOf(id));
     List<String> subs = s.listSubjects(s.semester());
     System.out.println("Subjects in Semester " + s.semester() + " (" + subs.size() + "):");
     for (String sub : subs)
@@ -235,7 +297,7 @@ public class CLI {
         inst.setFatDone(true);
     } else {
       System.out.println("Promoting all students to next semester...");
-      inst.promoteAll();
+      System.out.println(inst.promoteAll());
       inst.nextSemester();
       waitEnter();
     }
@@ -283,12 +345,96 @@ public class CLI {
   }
 
   private void viewAllSorted() {
-    DoublyLinkedList<Student> all = inst.getAllStudents();
-    MergeSort.sort(all, (a, b) -> Double.compare(b.getCGPA(), a.getCGPA()));
     System.out.println("=== Students Sorted by CGPA ===");
-    for (Student s : all) {
-      System.out.printf("ID: %s | Name: %s | CGPA: %.2f%n", s.id(), s.name(), s.getCGPA());
+    inst.forEachRanked(
+        s -> System.out.printf("ID: %s | Name: %s | CGPA: %.2f%n", s.id(), s.name(), s.getCGPA()));
+    waitEnter();
+  }
+
+  private void showRanked(boolean top) {
+    if (inst.empty()) {
+      System.out.println("No students found.");
+      waitEnter();
+      return;
+    }
+    int k = readInt("How many students? ", 1, inst.size());
+    int sem = readInt("Semester filter (0 for all): ", 0, Integer.MAX_VALUE);
+    List<Student> ranked;
+    if (sem == 0) {
+      // Whole-institute CGPA rankings come straight from the rank index
+      ranked = new ArrayList<>(k);
+      int n = inst.size();
+      for (int i = 0; i < k; i++)
+        ranked.add(inst.studentAtRank(top ? i + 1 : n - i));
+    } else {
+      Comparator<Student> byCgpa = (a, b) -> Double.compare(b.getCGPA(), a.getCGPA());
+      ranked = top ? inst.topK(k, byCgpa, sem) : inst.bottomK(k, byCgpa, sem);
+    }
+    System.out.println(top ? "=== Top " + k + " by CGPA ===" : "=== Bottom " + k + " by CGPA ===");
+    if (ranked.isEmpty())
+      System.out.println("No students found.");
+    for (int i = 0; i < ranked.size(); i++) {
+      Student s = ranked.get(i);
+      System.out.printf("%3d. ID: %s | Name: %s | Semester: %d | CGPA: %.2f%n", i + 1, s.id(), s.name(), s.semester(),
+          s.getCGPA());
+    }
+    waitEnter();
+  }
+
+  private void search() {
+    String prefix = readLine("Enter name or registration ID prefix: ");
+    int limit = readInt("Max results: ", 1, Integer.MAX_VALUE);
+    List<Student> byId = inst.searchById(prefix, limit);
+    List<Student> byName = inst.searchByName(prefix, limit);
+    System.out.println("=== Registration ID matches (" + byId.size() + ") ===");
+    for (Student s : byId)
+      System.out.printf("ID: %s | Name: %s | Semester: %d%n", s.id(), s.name(), s.semester());
+    System.out.println("=== Name matches (" + byName.size() + ") ===");
+    for (Student s : byName)
+      System.out.printf("ID: %s | Name: %s | Semester: %d%n", s.id(), s.name(), s.semester());
+    waitEnter();
+  }
+
+  private void showSubjectReport() {
+    int sem = readInt("Semester (0 for current): ", 0, Integer.MAX_VALUE);
+    if (sem == 0)
+      sem = inst.currentSemester();
+    List<String> subs = inst.subjectsIn(sem);
+    if (subs.isEmpty()) {
+      System.out.println("No subjects in semester " + sem + ".");
+      waitEnter();
+      return;
+    }
+    System.out.println("Subjects:");
+    for (int i = 0; i < subs.size(); i++)
+      System.out.println("  " + (i + 1) + ". " + subs.get(i) + " (" + inst.enrolledCount(sem, subs.get(i)) + ")");
+    String sub = subs.get(readInt("Choose subject (number): ", 1, subs.size()) - 1);
+
+    List<Student> enrolled = inst.studentsIn(sem, sub);
+    System.out.println("\n=== " + sub + ", Semester " + sem + " (" + enrolled.size() + " students) ===");
+    System.out.printf("%-14s%-22s%-10s%-10s%-10s%n", "ID", "Name", "CAT1", "CAT2", "FAT");
+    double[] sum = new double[Exam.values().length];
+    int[] count = new int[Exam.values().length];
+    for (Student s : enrolled) {
+      System.out.printf("%-14s%-22s", s.id(), s.name());
+      for (Exam ex : Exam.values()) {
+        if (s.hasMark(sem, sub, ex)) {
+          double m = s.latest(sem, sub, ex);
+          sum[ex.ordinal()] += m;
+          count[ex.ordinal()]++;
+          System.out.printf("%-10s", m);
+        } else {
+          System.out.printf("%-10s", "-");
+        }
+      }
+      System.out.println();
+    }
+    System.out.printf("%-36s", "Average");
+    for (Exam ex : Exam.values()) {
+      int i = ex.ordinal();
+      System.out.printf("%-10s", count[i] == 0 ? "-" : String.format("%.2f", sum[i] / count[i]));
     }
+    System.out.println();
     waitEnter();
   }
 
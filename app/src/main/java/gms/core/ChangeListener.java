@@ -0,0 +1,43 @@
+package gms.core;
+
+/**
+ * Hears every mutation made through the public API of an Institute and its
+ * students, once it has been applied (e.g. a journal that must be able to
+ * redo them). Replaying the calls in order on the state the listener was
+ * attached to rebuilds the current state.
+ * Calls happen on the mutating thread; a mutation made as part of another
+ * one (the CGPA updates of a promotion, the subject a first mark creates) is
+ * not reported separately.
+ */
+public interface ChangeListener {
+  // `s` is complete: it may already carry subjects and marks
+  void studentAdded(Student s);
+
+  void studentRemoved(String id);
+
+  void subjectAdded(Student s, int sem, String subject);
+
+  void subjectRemoved(Student s, int sem, String subject);
+
+  void markPushed(Student s, int sem, String subject, Exam ex, double mark);
+
+  // Same as markPushed for each of marks[off, off + len)
+  void marksPushed(Student s, int sem, String subject, Exam ex, double[] marks, int off, int len);
+
+  void markRolledBack(Student s, int sem, String subject, Exam ex);
+
+  void sgpaSet(Student s, int sem, double v);
+
+  // calculateSGPA(sem): SGPA recorded from the current marks
+  void sgpaCalculated(Student s, int sem);
+
+  void cgpaSet(Student s, double v);
+
+  void semesterPromoted(Student s);
+
+  // promoteAll / PromotionEngine.run
+  void allPromoted();
+
+  // Current semester or any exam-flow flag changed
+  void examFlowChanged(int currentSemester, boolean cat1Done, boolean cat2Done, boolean fatDone);
+}
@@ -1,28 +1,201 @@
 package gms.core;
 
+import gms.dsa.ArrayList;
+import gms.dsa.BoundedHeap;
+import gms.dsa.ConcurrentHashMap;
 import gms.dsa.DoublyLinkedList;
 import gms.dsa.HashMap;
+import gms.dsa.MergeSort;
+import gms.dsa.OrderStatisticTree;
+import gms.dsa.Trie;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class Institute {
-  private final Map<String, Student> students = new HashMap<>();
-  private int currentSemester = 1;
+  private final Map<String, Student> students;
+  private volatile int currentSemester = 1;
 
-  private boolean cat1Done, cat2Done, fatDone;
+  private volatile boolean cat1Done, cat2Done, fatDone;
+
+  // Rank index: entries ordered by CGPA descending, then regid. Student
+  // reports every CGPA change, so rank queries never have to sort.
+  private static final class Ranked {
+    final double cgpa;
+    final Student s;
+
+    Ranked(double cgpa, Student s) {
+      this.cgpa = cgpa;
+      this.s = s;
+    }
+  }
+
+  private static final Comparator<Ranked> RANK_ORDER = (a, b) -> {
+    int c = Double.compare(b.cgpa, a.cgpa);
+    return c != 0 ? c : a.s.id().compareTo(b.s.id());
+  };
+
+  private final OrderStatisticTree<Ranked> ranking = new OrderStatisticTree<>(RANK_ORDER);
+
+  // Semester index: semester -> (regid -> student), kept in step with
+  // add/remove and promotions so cohort views never scan everyone
+  private final HashMap<Integer, HashMap<String, Student>> bySemester = new HashMap<>();
+
+  // Search index: lowercased regids, and every word-suffix of lowercased names
+  // ("ravi kumar" and "kumar"), so a prefix of any name word finds the student
+  private final Trie<Student> idIndex = new Trie<>();
+  private final Trie<Student> nameIndex = new Trie<>();
+
+  // Enrollment index: semester -> subject -> (regid -> student), kept in step
+  // by Student.addSubject/removeSubject
+  private final HashMap<Integer, HashMap<String, HashMap<String, Student>>> enrollment = new HashMap<>();
+
+  // Optional columnar copy of the latest marks, see enableMarkStore
+  private volatile MarkStore markStore;
+
+  // Hears every mutation (e.g. a journal), null if none
+  volatile ChangeListener changes;
+
+  public Institute() {
+    this(false);
+  }
+
+  // A concurrent institute makes only the student map thread-safe: threads
+  // may look up and iterate students while one thread adds or removes them.
+  // Nothing else is: Student, its semesters and mark stacks, and the
+  // MarkStore are unsynchronized, so marks must still be entered from one
+  // thread. addStudent/removeStudent update the map before the indexes, so
+  // a rank, cohort or search query can briefly miss a student getStudent
+  // already returns, and adding and removing one regid at once can leave
+  // its index entries behind.
+  // The app itself never needs one: the CLI is single-threaded, and the
+  // promotion, checkpoint and marks-import workers never touch the student
+  // map. Only the Benchmark's concurrent lookup section builds it.
+  public Institute(boolean concurrent) {
+    // Incremental resize keeps a single addStudent from stalling on a full rehash
+    students = concurrent ? new ConcurrentHashMap<>() : new HashMap<>(16, true);
+  }
 
   // students
   public void addStudent(Student s) {
-    if (students.containsKey(s.id())) {
+    if (students.putIfAbsent(s.id(), s) != null) {
       System.out.println("Student already exists.");
       return;
     }
-    students.put(s.id(), s);
+    synchronized (ranking) {
+      s.owner = this;
+      ranking.add(new Ranked(s.getCGPA(), s));
+    }
+    synchronized (bySemester) {
+      indexSemester(s, s.semester());
+    }
+    synchronized (idIndex) {
+      idIndex.put(searchKey(s.id()), s);
+      for (String key : nameKeys(s.name()))
+        nameIndex.put(key, s);
+    }
+    synchronized (enrollment) {
+      s.forEachSubject((subj, sem) -> enroll(s, sem, subj.name()));
+    }
+    MarkStore store = markStore;
+    if (store != null)
+      store.attach(s);
+    ChangeListener l = changes;
+    if (l != null)
+      l.studentAdded(s);
+  }
+
+  /**
+   * Adds many students at once, e.g. from a snapshot. Same result as calling
+   * addStudent for each, but an empty rank index is built in one O(n) pass
+   * from the sorted entries instead of n tree inserts.
+   */
+  public void addStudents(List<Student> batch) {
+    ArrayList<Student> added = new ArrayList<>(batch.size());
+    for (Student s : batch) {
+      if (students.putIfAbsent(s.id(), s) != null)
+        System.out.println("Student already exists.");
+      else
+        added.add(s);
+    }
+    synchronized (ranking) {
+      ArrayList<Ranked> entries = new ArrayList<>(added.size());
+      for (Student s : added) {
+        s.owner = this;
+        entries.add(new Ranked(s.getCGPA(), s));
+      }
+      if (ranking.isEmpty()) {
+        // Snapshots are written in rank order, so this is usually a no-op
+        if (!isSorted(entries))
+          MergeSort.sort(entries, RANK_ORDER);
+        ranking.buildFrom(entries);
+      } else {
+        for (Ranked r : entries)
+          ranking.add(r);
+      }
+    }
+    for (Student s : added) {
+      synchronized (bySemester) {
+        indexSemester(s, s.semester());
+      }
+      synchronized (idIndex) {
+        idIndex.put(searchKey(s.id()), s);
+        for (String key : nameKeys(s.name()))
+          nameIndex.put(key, s);
+      }
+      synchronized (enrollment) {
+        s.forEachSubject((subj, sem) -> enroll(s, sem, subj.name()));
+      }
+    }
+    MarkStore store = markStore;
+    if (store != null) {
+      for (Student s : added)
+        store.attach(s);
+    }
+    ChangeListener l = changes;
+    if (l != null) {
+      for (Student s : added)
+        l.studentAdded(s);
+    }
+  }
+
+  private static boolean isSorted(List<Ranked> entries) {
+    for (int i = 1; i < entries.size(); i++) {
+      if (RANK_ORDER.compare(entries.get(i - 1), entries.get(i)) > 0)
+        return false;
+    }
+    return true;
   }
 
   public boolean removeStudent(String id) {
-    return students.remove(id) != null;
+    Student s = students.remove(id);
+    if (s == null)
+      return false;
+    synchronized (ranking) {
+      ranking.remove(new Ranked(s.getCGPA(), s));
+      s.owner = null;
+    }
+    synchronized (bySemester) {
+      unindexSemester(s, s.semester());
+    }
+    synchronized (idIndex) {
+      idIndex.remove(searchKey(s.id()), s);
+      for (String key : nameKeys(s.name()))
+        nameIndex.remove(key, s);
+    }
+    synchronized (enrollment) {
+      s.forEachSubject((subj, sem) -> unenroll(s, sem, subj.name()));
+    }
+    MarkStore store = markStore;
+    if (store != null)
+      store.detach(s);
+    ChangeListener l = changes;
+    if (l != null)
+      l.studentRemoved(id);
+    return true;
   }
 
   public Student getStudent(String id) {
@@ -45,6 +218,142 @@ public class Institute {
     students.forEach((id, s) -> fn.accept(s));
   }
 
+  // search
+
+  // Up to `limit` students whose regid starts with `prefix` (case-insensitive),
+  // in regid order
+  public List<Student> searchById(String prefix, int limit) {
+    synchronized (idIndex) {
+      return idIndex.withPrefix(searchKey(prefix), limit);
+    }
+  }
+
+  // Up to `limit` students with a name word starting with `prefix`
+  // (case-insensitive), in name order
+  public List<Student> searchByName(String prefix, int limit) {
+    ArrayList<Student> out = new ArrayList<>();
+    if (limit <= 0)
+      return out;
+    // A student can match through more than one of its name words
+    HashMap<Student, Boolean> seen = new HashMap<>();
+    synchronized (idIndex) {
+      nameIndex.forEachWithPrefix(searchKey(prefix), s -> {
+        if (seen.put(s, Boolean.TRUE) == null)
+          out.add(s);
+        return out.size() < limit;
+      });
+    }
+    return out;
+  }
+
+  private static String searchKey(String s) {
+    return s.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private static List<String> nameKeys(String name) {
+    String full = searchKey(name);
+    ArrayList<String> keys = new ArrayList<>();
+    keys.add(full);
+    for (int i = full.indexOf(' '); i >= 0; i = full.indexOf(' ', i + 1)) {
+      if (i + 1 < full.length() && full.charAt(i + 1) != ' ')
+        keys.add(full.substring(i + 1));
+    }
+    return keys;
+  }
+
+  // subjects
+
+  // Snapshot of the students enrolled in `subject` in semester `sem`.
+  // O(enrolled students), no scan of the institute.
+  public List<Student> studentsIn(int sem, String subject) {
+    synchronized (enrollment) {
+      HashMap<String, Student> enrolled = enrolledIn(sem, subject);
+      return enrolled == null ? new ArrayList<>() : new ArrayList<>(enrolled.values());
+    }
+  }
+
+  public void forEachStudentIn(int sem, String subject, Consumer<Student> fn) {
+    studentsIn(sem, subject).forEach(fn);
+  }
+
+  public int enrolledCount(int sem, String subject) {
+    synchronized (enrollment) {
+      HashMap<String, Student> enrolled = enrolledIn(sem, subject);
+      return enrolled == null ? 0 : enrolled.size();
+    }
+  }
+
+  // Subjects with at least one student enrolled in semester `sem`, sorted
+  public List<String> subjectsIn(int sem) {
+    ArrayList<String> names;
+    synchronized (enrollment) {
+      HashMap<String, HashMap<String, Student>> subjects = enrollment.get(sem);
+      names = subjects == null ? new ArrayList<>() : new ArrayList<>(subjects.keySet());
+    }
+    MergeSort.sort(names, String::compareTo);
+    return names;
+  }
+
+  void subjectAdded(Student s, int sem, Subject subj) {
+    synchronized (enrollment) {
+      enroll(s, sem, subj.name());
+    }
+    MarkStore store = markStore;
+    if (store != null)
+      store.bind(s, sem, subj);
+  }
+
+  void subjectRemoved(Student s, int sem, Subject subj) {
+    synchronized (enrollment) {
+      unenroll(s, sem, subj.name());
+    }
+    MarkStore store = markStore;
+    if (store != null)
+      store.unbind(subj);
+  }
+
+  // columnar marks
+
+  // Moves every student's latest marks into a columnar MarkStore (see there)
+  // and keeps it bound from then on. Idempotent.
+  public synchronized MarkStore enableMarkStore() {
+    if (markStore == null) {
+      MarkStore store = new MarkStore();
+      markStore = store;
+      forEachStudent(store::attach);
+    }
+    return markStore;
+  }
+
+  // The columnar store, or null if it was never enabled
+  public MarkStore markStore() {
+    return markStore;
+  }
+
+  private HashMap<String, Student> enrolledIn(int sem, String subject) {
+    HashMap<String, HashMap<String, Student>> subjects = enrollment.get(sem);
+    return subjects == null ? null : subjects.get(subject);
+  }
+
+  private void enroll(Student s, int sem, String subject) {
+    enrollment.computeIfAbsent(sem, k -> new HashMap<>())
+        .computeIfAbsent(subject, k -> new HashMap<>())
+        .put(s.id(), s);
+  }
+
+  private void unenroll(Student s, int sem, String subject) {
+    HashMap<String, HashMap<String, Student>> subjects = enrollment.get(sem);
+    if (subjects == null)
+      return;
+    HashMap<String, Student> enrolled = subjects.get(subject);
+    if (enrolled == null || enrolled.remove(s.id()) == null)
+      return;
+    if (enrolled.isEmpty())
+      subjects.remove(subject);
+    if (subjects.isEmpty())
+      enrollment.remove(sem);
+  }
+
   // semester + exam flow
   public int currentSemester() {
     return currentSemester;
@@ -52,14 +361,23 @@ public class Institute {
 
   public void setCurrentSemester(int s) {
     currentSemester = s;
+    examFlowChanged();
   }
 
-  public void promoteAll() {
-    forEachStudent(s -> {
-      s.finalizeSemester();
-      s.promoteOneSemester();
-    });
+  public PromotionEngine.Report promoteAll() {
+    PromotionEngine.Report report = new PromotionEngine(this).run();
     System.out.println("All students promoted to next semester.");
+    return report;
+  }
+
+  // Runs `publish` with both indexes locked, so rank and cohort queries never
+  // observe a half-promoted institute
+  void publishPromotion(Runnable publish) {
+    synchronized (ranking) {
+      synchronized (bySemester) {
+        publish.run();
+      }
+    }
   }
 
   public void nextSemester() {
@@ -67,6 +385,15 @@ public class Institute {
     resetExamFlow();
   }
 
+  // Attaches `l` (or detaches with null); it hears every later mutation
+  public void setChangeListener(ChangeListener l) {
+    changes = l;
+  }
+
+  public ChangeListener changeListener() {
+    return changes;
+  }
+
   public boolean isCat1Done() {
     return cat1Done;
   }
@@ -81,18 +408,28 @@ public class Institute {
 
   public void setCat1Done(boolean v) {
     cat1Done = v;
+    examFlowChanged();
   }
 
   public void setCat2Done(boolean v) {
     cat2Done = v;
+    examFlowChanged();
   }
 
   public void setFatDone(boolean v) {
     fatDone = v;
+    examFlowChanged();
   }
 
   public void resetExamFlow() {
     cat1Done = cat2Done = fatDone = false;
+    examFlowChanged();
+  }
+
+  private void examFlowChanged() {
+    ChangeListener l = changes;
+    if (l != null)
+      l.examFlowChanged(currentSemester, cat1Done, cat2Done, fatDone);
   }
 
   public Optional<Exam> lastExam() {
@@ -105,20 +442,173 @@ public class Institute {
     return Optional.empty();
   }
 
+  // Every semester's students, built from the semester index without a full scan
   public HashMap<Integer, List<Student>> getAllStudentsBySemester() {
     HashMap<Integer, List<Student>> result = new HashMap<>();
-    forEachStudent(s -> {
-      int sem = s.semester();
-      List<Student> list = result.get(sem);
-      if (list == null) {
-        list = new DoublyLinkedList<>();
-        result.put(sem, list);
-      }
-      list.add(s);
-    });
+    synchronized (bySemester) {
+      bySemester.forEach((sem, cohort) -> result.put(sem, new ArrayList<>(cohort.values())));
+    }
     return result;
   }
 
+  // Snapshot of the students currently in `sem`. O(size of that semester).
+  public List<Student> studentsInSemester(int sem) {
+    synchronized (bySemester) {
+      HashMap<String, Student> cohort = bySemester.get(sem);
+      return cohort == null ? new ArrayList<>() : new ArrayList<>(cohort.values());
+    }
+  }
+
+  public void forEachStudentInSemester(int sem, Consumer<Student> fn) {
+    studentsInSemester(sem).forEach(fn);
+  }
+
+  public int semesterSize(int sem) {
+    synchronized (bySemester) {
+      HashMap<String, Student> cohort = bySemester.get(sem);
+      return cohort == null ? 0 : cohort.size();
+    }
+  }
+
+  // Promotes every student in `all`. When `all` is exactly the set of indexed
+  // students, whole cohorts are moved up one semester in O(#semesters)
+  // instead of re-indexing each student.
+  void promoteEveryone(Student[] all) {
+    synchronized (bySemester) {
+      int indexed = 0;
+      for (HashMap<String, Student> cohort : bySemester.values())
+        indexed += cohort.size();
+      boolean exact = indexed == all.length;
+      for (int i = 0; exact && i < all.length; i++)
+        exact = all[i].owner == this;
+      if (!exact) {
+        // Not promoteOneSemester: the promotion is reported once, as a whole
+        for (Student s : all) {
+          s.advanceSemester();
+          Institute o = s.owner;
+          if (o != null)
+            o.semesterChanged(s, s.semester() - 1);
+        }
+        return;
+      }
+
+      for (Student s : all)
+        s.advanceSemester();
+      HashMap<Integer, HashMap<String, Student>> shifted = new HashMap<>();
+      bySemester.forEach((sem, cohort) -> shifted.put(sem + 1, cohort));
+      bySemester.clear();
+      shifted.forEach(bySemester::put);
+    }
+  }
+
+  // Called by Student after it was promoted out of `oldSem`
+  void semesterChanged(Student s, int oldSem) {
+    synchronized (bySemester) {
+      if (unindexSemester(s, oldSem))
+        indexSemester(s, s.semester());
+    }
+  }
+
+  private void indexSemester(Student s, int sem) {
+    bySemester.computeIfAbsent(sem, k -> new HashMap<>()).put(s.id(), s);
+  }
+
+  private boolean unindexSemester(Student s, int sem) {
+    HashMap<String, Student> cohort = bySemester.get(sem);
+    if (cohort == null || cohort.remove(s.id()) == null)
+      return false;
+    if (cohort.isEmpty())
+      bySemester.remove(sem);
+    return true;
+  }
+
+  // ranking
+
+  // Called by Student after its CGPA moved from `old` to its current value
+  void cgpaChanged(Student s, double old) {
+    synchronized (ranking) {
+      if (ranking.remove(new Ranked(old, s)))
+        ranking.add(new Ranked(s.getCGPA(), s));
+    }
+  }
+
+  // 1-based CGPA rank (ties broken by regid), or -1 if no such student. O(log n).
+  public int rankOf(String regid) {
+    Student s = students.get(regid);
+    if (s == null)
+      return -1;
+    synchronized (ranking) {
+      return ranking.rank(new Ranked(s.getCGPA(), s)) + 1;
+    }
+  }
+
+  // Student holding the given 1-based rank, or null if out of range. O(log n).
+  public Student studentAtRank(int rank) {
+    synchronized (ranking) {
+      if (rank < 1 || rank > ranking.size())
+        return null;
+      return ranking.select(rank - 1).s;
+    }
+  }
+
+  // Visits ranks fromRank..toRank (1-based, inclusive) best first. O(log n + k).
+  public void forEachRanked(int fromRank, int toRank, Consumer<Student> fn) {
+    ArrayList<Student> slice = new ArrayList<>();
+    synchronized (ranking) {
+      ranking.forEachInRange(fromRank - 1, toRank, r -> slice.add(r.s));
+    }
+    slice.forEach(fn);
+  }
+
+  public void forEachRanked(Consumer<Student> fn) {
+    forEachRanked(1, Integer.MAX_VALUE, fn);
+  }
+
+  // Percentage of students ranked below the given one, or -1 if not found
+  public double percentileOf(String regid) {
+    Student s = students.get(regid);
+    if (s == null)
+      return -1;
+    synchronized (ranking) {
+      int below = ranking.size() - 1 - ranking.rank(new Ranked(s.getCGPA(), s));
+      return ranking.size() <= 1 ? 100.0 : 100.0 * below / (ranking.size() - 1);
+    }
+  }
+
+  // The k students that come first under `comp`, best first. O(n log k) time,
+  // O(k) memory. sem > 0 restricts the ranking to students in that semester.
+  public List<Student> topK(int k, Comparator<Student> comp, int sem) {
+    if (sem > 0) {
+      // Straight from the semester index, without copying the cohort first
+      BoundedHeap<Student> heap;
+      synchronized (bySemester) {
+        HashMap<String, Student> cohort = bySemester.get(sem);
+        heap = new BoundedHeap<>(Math.max(0, Math.min(k, cohort == null ? 0 : cohort.size())), comp);
+        if (cohort != null) {
+          for (Student s : cohort.values())
+            heap.offer(s);
+        }
+      }
+      return heap.drainSorted();
+    }
+    BoundedHeap<Student> heap = new BoundedHeap<>(Math.max(0, Math.min(k, size())), comp);
+    forEachStudent(heap::offer);
+    return heap.drainSorted();
+  }
+
+  public List<Student> topK(int k, Comparator<Student> comp) {
+    return topK(k, comp, 0);
+  }
+
+  // The k students that come last under `comp`, worst first
+  public List<Student> bottomK(int k, Comparator<Student> comp, int sem) {
+    return topK(k, comp.reversed(), sem);
+  }
+
+  public List<Student> bottomK(int k, Comparator<Student> comp) {
+    return bottomK(k, comp, 0);
+  }
+
   public DoublyLinkedList<Student> getAllStudents() {
     DoublyLinkedList<Student> out = new DoublyLinkedList<>();
     forEachStudent(out::add);
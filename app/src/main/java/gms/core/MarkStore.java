@@ -0,0 +1,166 @@
+package gms.core;
+
+import gms.dsa.ArrayList;
+import gms.dsa.HashMap;
+import java.util.Arrays;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Columnar copy of every student's latest marks, one table per semester:
+ * parallel primitive arrays of student index, subject id and the latest
+ * CAT1/CAT2/FAT marks (NaN when missing). Each Subject is bound to its row
+ * and writes through on every mark change, and reads its latest marks back
+ * from the row, so Student/Subject act as a view over the store.
+ * Batch grading ({@link #computeAllSGPA}) is then a single sequential pass
+ * over a few primitive arrays instead of a walk over the object graph.
+ */
+public class MarkStore {
+  static final class Column {
+    int size;
+    int[] student = new int[16];
+    int[] subject = new int[16];
+    final double[][] latest = { new double[16], new double[16], new double[16] };
+    // Row owners, so a row moved by swap-remove can tell its Subject
+    Subject[] owner = new Subject[16];
+
+    synchronized double get(int row, Exam ex) {
+      return latest[ex.ordinal()][row];
+    }
+
+    synchronized void set(int row, Exam ex, double v) {
+      latest[ex.ordinal()][row] = v;
+    }
+
+    synchronized int append(int studentIdx, int subjectId, Subject subj) {
+      if (size == student.length) {
+        int cap = size * 2;
+        student = Arrays.copyOf(student, cap);
+        subject = Arrays.copyOf(subject, cap);
+        owner = Arrays.copyOf(owner, cap);
+        for (int e = 0; e < latest.length; e++)
+          latest[e] = Arrays.copyOf(latest[e], cap);
+      }
+      int row = size++;
+      student[row] = studentIdx;
+      subject[row] = subjectId;
+      owner[row] = subj;
+      for (Exam ex : Exam.values())
+        latest[ex.ordinal()][row] = subj.latestOwn(ex);
+      return row;
+    }
+
+    // Swap-remove: the last row moves into the hole
+    synchronized void remove(int row) {
+      int last = --size;
+      if (row != last) {
+        student[row] = student[last];
+        subject[row] = subject[last];
+        owner[row] = owner[last];
+        for (double[] col : latest)
+          col[row] = col[last];
+        owner[row].row = row;
+      }
+      owner[last] = null;
+    }
+  }
+
+  private final HashMap<Integer, Column> columns = new HashMap<>();
+  private final ArrayList<Student> students = new ArrayList<>();
+
+  // ===== Binding =====
+
+  synchronized void attach(Student s) {
+    if (s.storeIndex >= 0)
+      return;
+    s.storeIndex = students.size();
+    students.add(s);
+    s.forEachSubject((subj, sem) -> bind(s, sem, subj));
+  }
+
+  synchronized void detach(Student s) {
+    if (s.storeIndex < 0)
+      return;
+    s.forEachSubject((subj, sem) -> unbind(subj));
+    students.set(s.storeIndex, null);
+    s.storeIndex = -1;
+  }
+
+  synchronized void bind(Student s, int sem, Subject subj) {
+    if (s.storeIndex < 0 || subj.column != null)
+      return;
+    Column col = columns.computeIfAbsent(sem, k -> new Column());
+    subj.row = col.append(s.storeIndex, subj.id(), subj);
+    subj.column = col;
+  }
+
+  synchronized void unbind(Subject subj) {
+    Column col = subj.column;
+    if (col == null)
+      return;
+    subj.column = null;
+    col.remove(subj.row);
+  }
+
+  // ===== Queries =====
+
+  // Subject ids are Subject.names() ids
+  public String subjectName(int id) {
+    return Subject.names().name(id);
+  }
+
+  // Number of student slots (indexes of removed students stay empty)
+  public synchronized int capacity() {
+    return students.size();
+  }
+
+  public synchronized Student student(int index) {
+    return students.get(index);
+  }
+
+  public synchronized int rows(int sem) {
+    Column col = columns.get(sem);
+    return col == null ? 0 : col.size;
+  }
+
+  /**
+   * SGPA of semester `sem` for every student, indexed by store index (0.0 for
+   * students with no subjects that semester). One pass over the column.
+   */
+  public synchronized double[] computeAllSGPA(int sem) {
+    int n = students.size();
+    Column col = columns.get(sem);
+    double[] sgpa = new double[n];
+    if (col == null)
+      return sgpa;
+
+    int[] points = new int[n];
+    int[] count = new int[n];
+    synchronized (col) {
+      int[] student = col.student;
+      double[] c1 = col.latest[Exam.CAT1.ordinal()];
+      double[] c2 = col.latest[Exam.CAT2.ordinal()];
+      double[] fat = col.latest[Exam.FAT.ordinal()];
+      for (int r = 0, size = col.size; r < size; r++) {
+        double total = 0.3 * Subject.orZero(c1[r]) + 0.3 * Subject.orZero(c2[r]) + 0.4 * Subject.orZero(fat[r]);
+        int st = student[r];
+        points[st] += Subject.gradePoints(total);
+        count[st]++;
+      }
+    }
+    for (int i = 0; i < n; i++) {
+      if (count[i] > 0)
+        sgpa[i] = (double) points[i] / count[i];
+    }
+    return sgpa;
+  }
+
+  // Runs computeAllSGPA and visits every attached student with its SGPA
+  public void forEachSGPA(int sem, ObjDoubleConsumer<Student> fn) {
+    double[] sgpa = computeAllSGPA(sem);
+    for (int i = 0; i < sgpa.length; i++) {
+      Student s = student(i);
+      if (s != null)
+        fn.accept(s, sgpa[i]);
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package gms.core;
+
+import gms.dsa.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-of-semester promotion in three phases:
+ * <ol>
+ * <li>compute - every student's SGPA for the current semester and the CGPA it
+ * implies, split across a ForkJoinPool. The tasks only read the students and
+ * write into side arrays, so no locking is needed.</li>
+ * <li>publish - the new SGPAs and CGPAs go into the students and the rank
+ * index.</li>
+ * <li>promote - every student moves to the next semester.</li>
+ * </ol>
+ * Publish and promote run while the institute's indexes are locked, so a
+ * concurrent rank or cohort query sees the institute either entirely before
+ * or entirely after the promotion.
+ */
+public class PromotionEngine {
+  public interface Listener {
+    // May be called from worker threads during the compute phase
+    void progress(String phase, int done, int total);
+  }
+
+  public static final class Report {
+    private final int students;
+    private final long computeNanos, publishNanos, promoteNanos;
+
+    Report(int students, long computeNanos, long publishNanos, long promoteNanos) {
+      this.students = students;
+      this.computeNanos = computeNanos;
+      this.publishNanos = publishNanos;
+      this.promoteNanos = promoteNanos;
+    }
+
+    public int students() {
+      return students;
+    }
+
+    public long computeNanos() {
+      return computeNanos;
+    }
+
+    public long publishNanos() {
+      return publishNanos;
+    }
+
+    public long promoteNanos() {
+      return promoteNanos;
+    }
+
+    public long totalNanos() {
+      return computeNanos + publishNanos + promoteNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d students | compute %.1f ms | publish %.1f ms | promote %.1f ms",
+          students, computeNanos / 1e6, publishNanos / 1e6, promoteNanos / 1e6);
+    }
+  }
+
+  private static final Listener SILENT = (phase, done, total) -> {
+  };
+
+  // Students per leaf task, also the progress reporting granularity
+  private static final int CHUNK = 1024;
+
+  private final Institute inst;
+  private final int parallelism;
+  private final Listener listener;
+
+  public PromotionEngine(Institute inst) {
+    this(inst, Runtime.getRuntime().availableProcessors(), SILENT);
+  }
+
+  public PromotionEngine(Institute inst, int parallelism, Listener listener) {
+    this.inst = inst;
+    this.parallelism = Math.max(1, parallelism);
+    this.listener = listener == null ? SILENT : listener;
+  }
+
+  public Report run() {
+    ArrayList<Student> all = new ArrayList<>(inst.size());
+    inst.forEachStudent(all::add);
+    Student[] students = all.toArray(new Student[0]);
+    int n = students.length;
+    double[] sgpa = new double[n];
+    double[] cgpa = new double[n];
+
+    long t0 = System.nanoTime();
+    ComputeTask root = new ComputeTask(students, sgpa, cgpa, 0, n, new AtomicInteger());
+    if (parallelism == 1 || n <= CHUNK) {
+      root.compute();
+    } else {
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        pool.invoke(root);
+      } finally {
+        pool.shutdown();
+      }
+    }
+    long t1 = System.nanoTime();
+
+    long[] split = new long[1];
+    inst.publishPromotion(() -> {
+      for (int i = 0; i < n; i++) {
+        Student s = students[i];
+        s.storeSGPA(s.semester(), sgpa[i]);
+        s.changeCGPA(cgpa[i]);
+        report("publish", i + 1, n);
+      }
+      split[0] = System.nanoTime();
+      inst.promoteEveryone(students);
+      listener.progress("promote", n, n);
+    });
+    long t2 = System.nanoTime();
+
+    ChangeListener changes = inst.changes;
+    if (changes != null)
+      changes.allPromoted();
+
+    return new Report(n, t1 - t0, split[0] - t1, t2 - split[0]);
+  }
+
+  private void report(String phase, int done, int total) {
+    if (done % CHUNK == 0 || done == total)
+      listener.progress(phase, done, total);
+  }
+
+  // Lives only for one invoke, never serialized
+  @SuppressWarnings("serial")
+  private final class ComputeTask extends RecursiveAction {
+    private final Student[] students;
+    private final double[] sgpa, cgpa;
+    private final int lo, hi;
+    private final AtomicInteger done;
+
+    ComputeTask(Student[] students, double[] sgpa, double[] cgpa, int lo, int hi, AtomicInteger done) {
+      this.students = students;
+      this.sgpa = sgpa;
+      this.cgpa = cgpa;
+      this.lo = lo;
+      this.hi = hi;
+      this.done = done;
+    }
+
+    @Override
+    protected void compute() {
+      if (hi - lo <= CHUNK) {
+        for (int i = lo; i < hi; i++) {
+          Student s = students[i];
+          sgpa[i] = s.liveSGPA(s.semester());
+          cgpa[i] = s.cgpaWith(s.semester(), sgpa[i]);
+        }
+        listener.progress("compute", done.addAndGet(hi - lo), students.length);
+        return;
+      }
+      int mid = (lo + hi) >>> 1;
+      ComputeTask left = new ComputeTask(students, sgpa, cgpa, lo, mid, done);
+      left.fork();
+      new ComputeTask(students, sgpa, cgpa, mid, hi, done).compute();
+      left.join();
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package gms.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+// One semester of a student's subjects plus the running grade-point total
+// that keeps its SGPA available in O(1)
+final class Semester {
+  private static final String[] NONE = {};
+  private static final int[] NO_IDS = {};
+  private static final Subject[] NO_SUBJECTS = {};
+
+  // Subjects keyed by their Subject.names() id: two parallel arrays in
+  // insertion order, so a lookup is a scan of a few ints, no hashing or String
+  // compare. Arrays start at 4 slots (a semester has 4-8 subjects).
+  private int[] ids = NO_IDS;
+  private Subject[] subjects = NO_SUBJECTS;
+  private int size;
+  int gradePoints;
+
+  // Subject names in sorted order. Copy-on-write: add/remove build a new
+  // array, so the cached read-only view can be handed out without copying.
+  // The view is made on first use, not on every add (loads add many subjects).
+  private String[] sorted = NONE;
+  private List<String> view;
+
+  private int indexOf(int id) {
+    for (int i = 0; i < size; i++) {
+      if (ids[i] == id)
+        return i;
+    }
+    return -1;
+  }
+
+  Subject get(int id) {
+    int i = indexOf(id);
+    return i < 0 ? null : subjects[i];
+  }
+
+  // Adds a subject for an id not yet in this semester
+  Subject add(int id) {
+    Subject s = new Subject(id);
+    if (size == ids.length) {
+      int cap = Math.max(4, size * 2);
+      ids = Arrays.copyOf(ids, cap);
+      subjects = Arrays.copyOf(subjects, cap);
+    }
+    ids[size] = id;
+    subjects[size++] = s;
+
+    // The interned name, so every student shares one String per subject
+    String name = s.name();
+    int at = -Arrays.binarySearch(sorted, name) - 1;
+    String[] next = new String[sorted.length + 1];
+    System.arraycopy(sorted, 0, next, 0, at);
+    next[at] = name;
+    System.arraycopy(sorted, at, next, at + 1, sorted.length - at);
+    publish(next);
+    return s;
+  }
+
+  Subject remove(int id) {
+    int i = indexOf(id);
+    if (i < 0)
+      return null;
+    Subject s = subjects[i];
+    size--;
+    System.arraycopy(ids, i + 1, ids, i, size - i);
+    System.arraycopy(subjects, i + 1, subjects, i, size - i);
+    subjects[size] = null;
+
+    int at = Arrays.binarySearch(sorted, s.name());
+    String[] next = new String[sorted.length - 1];
+    System.arraycopy(sorted, 0, next, 0, at);
+    System.arraycopy(sorted, at + 1, next, at, next.length - at);
+    publish(next);
+    return s;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  void forEach(Consumer<Subject> action) {
+    for (int i = 0; i < size; i++)
+      action.accept(subjects[i]);
+  }
+
+  List<String> names() {
+    List<String> v = view;
+    if (v == null) {
+      v = sorted.length == 0 ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(sorted));
+      view = v;
+    }
+    return v;
+  }
+
+  double sgpa() {
+    return size == 0 ? 0.0 : (double) gradePoints / size;
+  }
+
+  private void publish(String[] next) {
+    sorted = next;
+    view = null;
+  }
+}
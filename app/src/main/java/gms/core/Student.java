@@ -1,21 +1,31 @@
 package gms.core;
 
-import gms.dsa.MergeSort;
-import gms.dsa.DoublyLinkedList;
-import gms.dsa.HashMap;
+import gms.dsa.ArrayList;
+import gms.dsa.IntDoubleMap;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.function.DoubleConsumer;
+import java.util.function.ObjIntConsumer;
 
 public class Student {
   private final String id;
   private final String name;
   private int semester = 1;
 
-  private final List<HashMap<String, Subject>> semSubs = new DoublyLinkedList<>();
-  private final Map<Integer, Double> sgpa = new HashMap<>();
+  private final List<Semester> semSubs = new ArrayList<>();
+  // Recorded (finalized) SGPAs; CGPA is their mean
+  private final IntDoubleMap sgpa = new IntDoubleMap();
+  // Lowest and highest semester with a recorded SGPA (SGPAs are never removed)
+  private int sgpaLo = Integer.MAX_VALUE, sgpaHi = Integer.MIN_VALUE;
   private double cgpa = 0.0;
 
+  // Institute whose indexes must hear about CGPA, semester and subject changes
+  // (null if detached)
+  volatile Institute owner;
+  // Slot in the owner's MarkStore (-1 if not attached)
+  int storeIndex = -1;
+
   public Student(String id, String name) {
     this.id = id;
     this.name = name;
@@ -34,6 +44,18 @@ public class Student {
   }
 
   public void promoteOneSemester() {
+    advanceSemester();
+    Institute o = owner;
+    if (o != null) {
+      o.semesterChanged(this, semester - 1);
+      ChangeListener l = o.changes;
+      if (l != null)
+        l.semesterPromoted(this);
+    }
+  }
+
+  // Bumps the semester without telling the owner (which re-indexes in bulk)
+  void advanceSemester() {
     semester++;
   }
 
@@ -42,65 +64,163 @@ public class Student {
   }
 
   public double getSGPA(int sem) {
-    return sgpa.getOrDefault(sem, 0.0);
+    return sgpa.get(sem, 0.0);
   }
 
   public void setSGPA(int sem, double v) {
-    sgpa.put(sem, v);
+    putSGPA(sem, v);
+    ChangeListener l = changes();
+    if (l != null)
+      l.sgpaSet(this, sem, v);
+  }
+
+  // Whether `sem` has a recorded (finalized) SGPA
+  public boolean hasSGPA(int sem) {
+    return sgpa.containsKey(sem);
+  }
+
+  // SGPA of `sem` from its current marks, whether or not it was finalized. O(1).
+  public double liveSGPA(int sem) {
+    return (sem <= 0 || sem > semSubs.size()) ? 0.0 : semSubs.get(sem - 1).sgpa();
   }
 
   public void setCGPA(double v) {
+    changeCGPA(v);
+    ChangeListener l = changes();
+    if (l != null)
+      l.cgpaSet(this, v);
+  }
+
+  // setCGPA without telling the change listener (part of a larger mutation)
+  void changeCGPA(double v) {
+    double old = cgpa;
     cgpa = v;
+    Institute o = owner;
+    if (o != null && Double.compare(old, v) != 0)
+      o.cgpaChanged(this, old);
   }
 
   // Ensures semester list exists
-  private HashMap<String, Subject> ensureSem(int sem) {
+  private Semester ensureSem(int sem) {
     while (semSubs.size() < sem) {
-      semSubs.add(new HashMap<>());
+      semSubs.add(new Semester());
     }
     return semSubs.get(sem - 1);
   }
 
-  private Subject ensureSubject(int sem, String sub) {
-    HashMap<String, Subject> inner = ensureSem(sem);
-    return inner.computeIfAbsent(sub, Subject::new);
+  private Subject ensureSubject(int sem, int subjectId) {
+    Semester inner = ensureSem(sem);
+    Subject s = inner.get(subjectId);
+    if (s == null) {
+      s = inner.add(subjectId);
+      semesterChanged(sem);
+      Institute o = owner;
+      if (o != null)
+        o.subjectAdded(this, sem, s);
+    }
+    return s;
   }
 
-  private Subject findSubject(int sem, String sub) {
+  private Subject findSubject(int sem, int subjectId) {
     if (sem <= 0 || sem > semSubs.size())
       return null;
-    return semSubs.get(sem - 1).get(sub);
+    return semSubs.get(sem - 1).get(subjectId);
+  }
+
+  // A name that was never interned belongs to no student
+  private Subject findSubject(int sem, String sub) {
+    int id = Subject.names().id(sub);
+    return id < 0 ? null : findSubject(sem, id);
+  }
+
+  // Change listener of the owner, null if none
+  private ChangeListener changes() {
+    Institute o = owner;
+    return o == null ? null : o.changes;
   }
 
   // Subject management
   public boolean addSubject(int sem, String sub) {
-    if (hasSubject(sem, sub))
+    return addSubject(sem, Subject.names().intern(sub));
+  }
+
+  // Same as addSubject(sem, name) for a Subject.names() id
+  public boolean addSubject(int sem, int subjectId) {
+    if (findSubject(sem, subjectId) != null)
       return false;
-    ensureSubject(sem, sub);
+    Subject s = ensureSubject(sem, subjectId);
+    ChangeListener l = changes();
+    if (l != null)
+      l.subjectAdded(this, sem, s.name());
     return true;
   }
 
   public boolean removeSubject(int sem, String sub) {
     if (sem <= 0 || sem > semSubs.size())
       return false;
-    return semSubs.get(sem - 1).remove(sub) != null;
+    int id = Subject.names().id(sub);
+    if (id < 0)
+      return false;
+    Semester inner = semSubs.get(sem - 1);
+    Subject removed = inner.remove(id);
+    if (removed == null)
+      return false;
+    inner.gradePoints -= removed.gradePoints();
+    semesterChanged(sem);
+    Institute o = owner;
+    if (o != null) {
+      o.subjectRemoved(this, sem, removed);
+      ChangeListener l = o.changes;
+      if (l != null)
+        l.subjectRemoved(this, sem, sub);
+    }
+    return true;
   }
 
   public boolean hasSubject(int sem, String sub) {
     return findSubject(sem, sub) != null;
   }
 
+  // Every (subject, semester) the student is enrolled in
+  void forEachSubject(ObjIntConsumer<Subject> action) {
+    for (int i = 0; i < semSubs.size(); i++) {
+      int sem = i + 1;
+      semSubs.get(i).forEach(subj -> action.accept(subj, sem));
+    }
+  }
+
+  // Sorted, read-only and cached: no copy or sort per call
   public List<String> listSubjects(int sem) {
     if (sem <= 0 || sem > semSubs.size())
       return Collections.emptyList();
-    DoublyLinkedList<String> names = new DoublyLinkedList<>(semSubs.get(sem - 1).keySet());
-    MergeSort.sort(names, String::compareTo);
-    return names;
+    return semSubs.get(sem - 1).names();
   }
 
   // Marks handling
   public void pushMark(int sem, String subject, Exam ex, double mark) {
-    ensureSubject(sem, subject).addMark(ex, mark);
+    pushMark(sem, Subject.names().intern(subject), ex, mark);
+  }
+
+  // Same as pushMark(sem, name, ...) for a Subject.names() id
+  public void pushMark(int sem, int subjectId, Exam ex, double mark) {
+    Subject s = ensureSubject(sem, subjectId);
+    int before = s.gradePoints();
+    s.addMark(ex, mark);
+    pointsChanged(sem, s.gradePoints() - before);
+    ChangeListener l = changes();
+    if (l != null)
+      l.markPushed(this, sem, s.name(), ex, mark);
+  }
+
+  // Same as pushMark for each of marks[off, off + len), oldest first
+  public void pushMarks(int sem, int subjectId, Exam ex, double[] marks, int off, int len) {
+    Subject s = ensureSubject(sem, subjectId);
+    int before = s.gradePoints();
+    s.addMarks(ex, marks, off, len);
+    pointsChanged(sem, s.gradePoints() - before);
+    ChangeListener l = changes();
+    if (l != null && len > 0)
+      l.marksPushed(this, sem, s.name(), ex, marks, off, len);
   }
 
   public List<Double> marksHistory(int sem, String subject, Exam ex) {
@@ -108,6 +228,13 @@ public class Student {
     return (s == null) ? Collections.emptyList() : s.marksHistory(ex);
   }
 
+  // oldest -> newest, without boxing
+  public void forEachMark(int sem, String subject, Exam ex, DoubleConsumer action) {
+    Subject s = findSubject(sem, subject);
+    if (s != null)
+      s.forEachMark(ex, action);
+  }
+
   public void printHistory(int sem, String subject, Exam ex) {
     Subject s = findSubject(sem, subject);
     if (s != null) {
@@ -115,14 +242,43 @@ public class Student {
     }
   }
 
+  public boolean hasMark(int sem, String subject, Exam ex) {
+    Subject s = findSubject(sem, subject);
+    return s != null && s.hasMark(ex);
+  }
+
   public double latest(int sem, String subject, Exam ex) {
     Subject s = findSubject(sem, subject);
-    return (s == null) ? 0.0 : (s.latest(ex) == null) ? 0.0 : s.latest(ex);
+    return (s == null) ? 0.0 : Subject.orZero(s.latest(ex));
   }
 
   public boolean rollbackMark(int sem, String subject, Exam ex) {
     Subject s = findSubject(sem, subject);
-    return s != null && s.rollback(ex);
+    if (s == null)
+      return false;
+    int before = s.gradePoints();
+    if (!s.rollback(ex))
+      return false;
+    pointsChanged(sem, s.gradePoints() - before);
+    ChangeListener l = changes();
+    if (l != null)
+      l.markRolledBack(this, sem, subject, ex);
+    return true;
+  }
+
+  private void pointsChanged(int sem, int delta) {
+    if (delta == 0)
+      return;
+    semSubs.get(sem - 1).gradePoints += delta;
+    semesterChanged(sem);
+  }
+
+  // A finalized semester keeps its recorded SGPA (and so the CGPA) current
+  private void semesterChanged(int sem) {
+    if (sgpa.containsKey(sem)) {
+      putSGPA(sem, liveSGPA(sem));
+      recomputeCGPA();
+    }
   }
 
   public void finalizeSemester() {
@@ -135,7 +291,7 @@ public class Student {
       return;
     }
 
-    HashMap<String, Subject> inner = semSubs.get(sem - 1);
+    Semester inner = semSubs.get(sem - 1);
     if (inner.isEmpty()) {
       System.out.println("(No subjects)");
       return;
@@ -149,80 +305,87 @@ public class Student {
       line.append('-');
     System.out.println(line);
 
-    inner.forEach((subName, subj) -> {
-      Double c1 = subj.latest(Exam.CAT1);
-      Double c2 = subj.latest(Exam.CAT2);
-      Double fat = subj.latest(Exam.FAT);
+    for (String subName : inner.names()) {
+      Subject subj = inner.get(Subject.names().id(subName));
+      double c1 = subj.latest(Exam.CAT1);
+      double c2 = subj.latest(Exam.CAT2);
+      double fat = subj.latest(Exam.FAT);
 
-      boolean missing = (c1 == null || c2 == null || fat == null);
+      boolean missing = (Double.isNaN(c1) || Double.isNaN(c2) || Double.isNaN(fat));
       double total = missing ? 0.0 : 0.3 * c1 + 0.3 * c2 + 0.4 * fat;
 
       System.out.printf("%-22s", subName);
-      System.out.printf("%-10s", c1 == null ? "-" : c1);
-      System.out.printf("%-10s", c2 == null ? "-" : c2);
-      System.out.printf("%-10s", fat == null ? "-" : fat);
+      System.out.printf("%-10s", Double.isNaN(c1) ? "-" : c1);
+      System.out.printf("%-10s", Double.isNaN(c2) ? "-" : c2);
+      System.out.printf("%-10s", Double.isNaN(fat) ? "-" : fat);
 
       if (missing)
         System.out.printf("%-10s%s%n", "-", "-");
       else
         System.out.printf("%-10.2f%c%n", total, letterGrade(total));
-    });
+    }
   }
 
+  // Records the SGPA of `sem` (finalizing it) and updates the CGPA
   public double calculateSGPA(int sem) {
-    if (sem <= 0 || sem > semSubs.size()) {
-      sgpa.put(sem, 0.0);
-      recomputeCGPA();
-      return 0.0;
-    }
+    double sg = liveSGPA(sem);
+    putSGPA(sem, sg);
+    recomputeCGPA();
+    ChangeListener l = changes();
+    if (l != null)
+      l.sgpaCalculated(this, sem);
+    return sg;
+  }
 
-    HashMap<String, Subject> inner = semSubs.get(sem - 1);
-    if (inner.isEmpty()) {
-      sgpa.put(sem, 0.0);
-      recomputeCGPA();
-      return 0.0;
-    }
+  // Records `v` as the SGPA of `sem` without touching the CGPA
+  void storeSGPA(int sem, double v) {
+    putSGPA(sem, v);
+  }
 
-    int totalCredits = 0, sumGrades = 0;
-    for (var subj : inner.values()) {
-      Double cat1 = subj.latest(Exam.CAT1);
-      Double cat2 = subj.latest(Exam.CAT2);
-      Double fat = subj.latest(Exam.FAT);
-      double total = 0.3 * (cat1 == null ? 0.0 : cat1) +
-          0.3 * (cat2 == null ? 0.0 : cat2) +
-          0.4 * (fat == null ? 0.0 : fat);
-
-      sumGrades += gradePoints(total);
-      totalCredits++;
-    }
+  private void putSGPA(int sem, double v) {
+    sgpa.put(sem, v);
+    sgpaLo = Math.min(sgpaLo, sem);
+    sgpaHi = Math.max(sgpaHi, sem);
+  }
 
-    double sg = totalCredits == 0 ? 0.0 : (double) sumGrades / totalCredits;
-    sgpa.put(sem, sg);
-    recomputeCGPA();
-    return sg;
+  // CGPA implied by the recorded SGPAs. Summed afresh in semester order (a
+  // handful of entries) rather than kept as a running sum, so it depends only
+  // on the SGPAs themselves and a reloaded student gets the same bits.
+  double cgpaFromSGPA() {
+    if (sgpa.size() == 0)
+      return 0.0;
+    // A recorded semester with its own SGPA changes nothing
+    return cgpaWith(sgpaLo, sgpa.get(sgpaLo, 0.0));
   }
 
-  private void recomputeCGPA() {
-    double sum = 0;
-    for (double v : sgpa.values())
-      sum += v;
-    cgpa = sgpa.isEmpty() ? 0.0 : sum / sgpa.size();
+  // CGPA the recorded SGPAs would give with `sem` recorded as `v`, without
+  // recording it. Same bits as storeSGPA(sem, v) followed by cgpaFromSGPA().
+  double cgpaWith(int sem, double v) {
+    int n = sgpa.size() + (sgpa.containsKey(sem) ? 0 : 1);
+    int lo = Math.min(sgpaLo, sem), hi = Math.max(sgpaHi, sem);
+    double sum = 0.0;
+    if ((long) hi - lo < 4L * n + 16) {
+      // A semester without an SGPA adds 0.0, which leaves the sum unchanged
+      for (int k = lo; k <= hi; k++)
+        sum += k == sem ? v : sgpa.get(k, 0.0);
+      return sum / n;
+    }
+    // Semesters far apart (only from hand-edited data): sort the keys instead
+    int[] sems = new int[n];
+    int[] k = { 0 };
+    sgpa.forEach((s, x) -> {
+      if (s != sem)
+        sems[k[0]++] = s;
+    });
+    sems[n - 1] = sem;
+    Arrays.sort(sems);
+    for (int s : sems)
+      sum += s == sem ? v : sgpa.get(s, 0.0);
+    return sum / n;
   }
 
-  private static int gradePoints(double total) {
-    if (total >= 90)
-      return 10;
-    if (total >= 80)
-      return 9;
-    if (total >= 70)
-      return 8;
-    if (total >= 60)
-      return 7;
-    if (total >= 50)
-      return 6;
-    if (total >= 40)
-      return 5;
-    return 0;
+  private void recomputeCGPA() {
+    changeCGPA(cgpaFromSGPA());
   }
 
   private static char letterGrade(double total) {
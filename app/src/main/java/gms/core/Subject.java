@@ -1,48 +1,135 @@
 package gms.core;
 
-import gms.dsa.Stack;
-import java.util.EnumMap;
+import gms.dsa.ArrayList;
+import gms.dsa.DoubleStack;
+import gms.dsa.SymbolTable;
 import java.util.List;
-import java.util.Map;
+import java.util.function.DoubleConsumer;
 
 public class Subject {
-  private final String name;
-  private final Map<Exam, Stack<Double>> marks = new EnumMap<>(Exam.class);
+  // Every subject name in the process, interned to a dense id
+  private static final SymbolTable NAMES = new SymbolTable();
+
+  private final int id;
+  // Indexed by Exam.ordinal()
+  private final DoubleStack[] marks = { new DoubleStack(), new DoubleStack(), new DoubleStack() };
+  // Grade points of the latest marks, kept current by addMark/rollback
+  private int points;
+
+  // Row in a MarkStore column this subject writes through to (null if unbound)
+  MarkStore.Column column;
+  int row;
 
   public Subject(String name) {
-    this.name = name;
-    marks.put(Exam.CAT1, new Stack<>());
-    marks.put(Exam.CAT2, new Stack<>());
-    marks.put(Exam.FAT, new Stack<>());
+    this(NAMES.intern(name));
+  }
+
+  public Subject(int id) {
+    NAMES.name(id); // validates the id
+    this.id = id;
+  }
+
+  public static SymbolTable names() {
+    return NAMES;
+  }
+
+  public int id() {
+    return id;
   }
 
   public String name() {
-    return name;
+    return NAMES.name(id);
   }
 
   public void addMark(Exam ex, double mark) {
-    marks.get(ex).push(mark);
+    marks[ex.ordinal()].push(mark);
+    changed(ex);
+  }
+
+  // Appends marks[off, off + len) as if by len addMark calls
+  public void addMarks(Exam ex, double[] marks, int off, int len) {
+    if (len == 0)
+      return;
+    this.marks[ex.ordinal()].pushAll(marks, off, len);
+    changed(ex);
   }
 
   public boolean rollback(Exam ex) {
-    Stack<Double> s = marks.get(ex);
+    DoubleStack s = marks[ex.ordinal()];
     if (s.size() <= 1)
       return false;
-    return s.pop();
+    s.pop();
+    changed(ex);
+    return true;
+  }
+
+  private void changed(Exam ex) {
+    MarkStore.Column c = column;
+    if (c != null)
+      c.set(row, ex, latestOwn(ex));
+    points = gradePoints(total());
+  }
+
+  public int gradePoints() {
+    return points;
+  }
+
+  // Weighted total of the latest marks, missing marks counting as 0
+  public double total() {
+    return 0.3 * orZero(latest(Exam.CAT1)) + 0.3 * orZero(latest(Exam.CAT2)) + 0.4 * orZero(latest(Exam.FAT));
+  }
+
+  public boolean hasMark(Exam ex) {
+    return !marks[ex.ordinal()].isEmpty();
+  }
+
+  // NaN when no mark has been entered for the exam yet
+  public double latest(Exam ex) {
+    MarkStore.Column c = column;
+    return c != null ? c.get(row, ex) : latestOwn(ex);
   }
 
-  public Double latest(Exam ex) {
-    Stack<Double> s = marks.get(ex);
+  // Latest mark from this subject's own history
+  double latestOwn(Exam ex) {
+    DoubleStack s = marks[ex.ordinal()];
     if (s.isEmpty())
-      return null;
+      return Double.NaN;
     return s.peek();
   }
 
+  // oldest -> newest
+  public void forEachMark(Exam ex, DoubleConsumer action) {
+    marks[ex.ordinal()].forEachOldestFirst(action);
+  }
+
   public List<Double> marksHistory(Exam ex) {
-    return marks.get(ex).toList();
+    DoubleStack s = marks[ex.ordinal()];
+    List<Double> out = new ArrayList<>(s.size());
+    s.forEachOldestFirst(out::add);
+    return out;
   }
 
   public void printHistory(Exam ex) {
-    marks.get(ex).display();
+    marks[ex.ordinal()].display();
+  }
+
+  static double orZero(double mark) {
+    return Double.isNaN(mark) ? 0.0 : mark;
+  }
+
+  static int gradePoints(double total) {
+    if (total >= 90)
+      return 10;
+    if (total >= 80)
+      return 9;
+    if (total >= 70)
+      return 8;
+    if (total >= 60)
+      return 7;
+    if (total >= 50)
+      return 6;
+    if (total >= 40)
+      return 5;
+    return 0;
   }
 }
@@ -0,0 +1,236 @@
+package gms.dsa;
+
+import java.util.*;
+
+public class ArrayList<T> implements List<T> {
+  private static final int DEFAULT_CAPACITY = 8;
+  private static final Object[] EMPTY = {};
+
+  // Package-private so MergeSort can sort the backing array directly
+  Object[] data;
+  int size = 0;
+
+  public ArrayList() {
+    data = EMPTY;
+  }
+
+  public ArrayList(int capacity) {
+    data = capacity == 0 ? EMPTY : new Object[capacity];
+  }
+
+  public ArrayList(Collection<? extends T> c) {
+    this(c.size());
+    for (T item : c)
+      add(item);
+  }
+
+  // ===== Basic Helpers =====
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size)
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+  }
+
+  public void ensureCapacity(int min) {
+    if (min <= data.length)
+      return;
+    int cap = Math.max(Math.max(DEFAULT_CAPACITY, data.length + (data.length >> 1)), min);
+    data = Arrays.copyOf(data, cap);
+  }
+
+  @SuppressWarnings("unchecked")
+  private T elementAt(int index) {
+    return (T) data[index];
+  }
+
+  // ====== List<T> Implementation ======
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return indexOf(o) >= 0;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return new Iterator<T>() {
+      int cur = 0;
+      int last = -1;
+
+      @Override
+      public boolean hasNext() {
+        return cur < size;
+      }
+
+      @Override
+      public T next() {
+        if (!hasNext())
+          throw new NoSuchElementException();
+        last = cur;
+        return elementAt(cur++);
+      }
+
+      @Override
+      public void remove() {
+        if (last < 0)
+          throw new IllegalStateException();
+        ArrayList.this.remove(last);
+        cur = last;
+        last = -1;
+      }
+    };
+  }
+
+  @Override
+  public T get(int index) {
+    checkIndex(index);
+    return elementAt(index);
+  }
+
+  @Override
+  public T set(int index, T element) {
+    checkIndex(index);
+    T old = elementAt(index);
+    data[index] = element;
+    return old;
+  }
+
+  @Override
+  public boolean add(T element) {
+    if (size == data.length)
+      ensureCapacity(size + 1);
+    data[size++] = element;
+    return true;
+  }
+
+  @Override
+  public void add(int index, T element) {
+    if (index < 0 || index > size)
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    if (size == data.length)
+      ensureCapacity(size + 1);
+    System.arraycopy(data, index, data, index + 1, size - index);
+    data[index] = element;
+    size++;
+  }
+
+  @Override
+  public T remove(int index) {
+    checkIndex(index);
+    T val = elementAt(index);
+    System.arraycopy(data, index + 1, data, index, size - index - 1);
+    data[--size] = null;
+    return val;
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    int i = indexOf(o);
+    if (i < 0)
+      return false;
+    remove(i);
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(data, 0, size, null);
+    size = 0;
+  }
+
+  @Override
+  public int indexOf(Object o) {
+    for (int i = 0; i < size; i++) {
+      if (Objects.equals(data[i], o))
+        return i;
+    }
+    return -1;
+  }
+
+  @Override
+  public int lastIndexOf(Object o) {
+    for (int i = size - 1; i >= 0; i--) {
+      if (Objects.equals(data[i], o))
+        return i;
+    }
+    return -1;
+  }
+
+  // Not implemented as it's not used in the codebase
+  @Override
+  public ListIterator<T> listIterator() {
+    throw new UnsupportedOperationException();
+  }
+
+  // Not implemented as it's not used in the codebase
+  @Override
+  public ListIterator<T> listIterator(int index) {
+    throw new UnsupportedOperationException();
+  }
+
+  // Not implemented as it's not used in the codebase
+  @Override
+  public List<T> subList(int fromIndex, int toIndex) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Object[] toArray() {
+    return Arrays.copyOf(data, size);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <E> E[] toArray(E[] a) {
+    if (a.length < size)
+      return (E[]) Arrays.copyOf(data, size, a.getClass());
+    System.arraycopy(data, 0, a, 0, size);
+    if (a.length > size)
+      a[size] = null;
+    return a;
+  }
+
+  @Override
+  public boolean containsAll(Collection<?> c) {
+    for (Object o : c) {
+      if (!contains(o))
+        return false;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean addAll(Collection<? extends T> c) {
+    ensureCapacity(size + c.size());
+    for (T item : c)
+      data[size++] = item;
+    return !c.isEmpty();
+  }
+
+  // Not implemented as it's not used in the codebase
+  @Override
+  public boolean addAll(int index, Collection<? extends T> c) {
+    throw new UnsupportedOperationException();
+  }
+
+  // Not implemented as it's not used in the codebase
+  @Override
+  public boolean removeAll(Collection<?> c) {
+    throw new UnsupportedOperationException();
+  }
+
+  // Not implemented as it's not used in the codebase
+  @Override
+  public boolean retainAll(Collection<?> c) {
+    throw new UnsupportedOperationException();
+  }
+}
@@ -0,0 +1,100 @@
+package gms.dsa;
+
+import java.util.Comparator;
+
+/**
+ * Keeps the k elements that come first under a comparator.
+ * Internally a binary max-heap of at most k elements, so the worst kept
+ * element sits at the root and can be replaced in O(log k). Feeding n
+ * elements costs O(n log k) time and O(k) memory.
+ */
+public class BoundedHeap<T> {
+  private final Object[] heap;
+  private final Comparator<? super T> comp;
+  private int size;
+
+  public BoundedHeap(int k, Comparator<? super T> comp) {
+    if (k < 0)
+      throw new IllegalArgumentException("k must be >= 0: " + k);
+    this.heap = new Object[k];
+    this.comp = comp;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  private T at(int i) {
+    return (T) heap[i];
+  }
+
+  // Returns true if the element was kept
+  public boolean offer(T v) {
+    if (heap.length == 0)
+      return false;
+    if (size < heap.length) {
+      heap[size] = v;
+      siftUp(size++);
+      return true;
+    }
+    if (comp.compare(v, at(0)) >= 0)
+      return false;
+    heap[0] = v;
+    siftDown(0);
+    return true;
+  }
+
+  // The worst of the kept elements
+  public T peekWorst() {
+    if (isEmpty())
+      throw new IllegalStateException("Heap is empty");
+    return at(0);
+  }
+
+  // Empties the heap and returns its elements best-first
+  public ArrayList<T> drainSorted() {
+    ArrayList<T> out = new ArrayList<>(size);
+    for (int i = 0; i < size; i++)
+      out.add(null);
+    for (int i = size - 1; i >= 0; i--) {
+      out.set(i, at(0));
+      heap[0] = heap[--size];
+      heap[size] = null;
+      siftDown(0);
+    }
+    return out;
+  }
+
+  private void siftUp(int i) {
+    Object v = heap[i];
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (comp.compare(at(parent), at(i)) >= 0)
+        break;
+      heap[i] = heap[parent];
+      heap[parent] = v;
+      i = parent;
+    }
+  }
+
+  private void siftDown(int i) {
+    while (true) {
+      int l = 2 * i + 1, r = l + 1, largest = i;
+      if (l < size && comp.compare(at(l), at(largest)) > 0)
+        largest = l;
+      if (r < size && comp.compare(at(r), at(largest)) > 0)
+        largest = r;
+      if (largest == i)
+        return;
+      Object tmp = heap[i];
+      heap[i] = heap[largest];
+      heap[largest] = tmp;
+      i = largest;
+    }
+  }
+}
@@ -0,0 +1,454 @@
+package gms.dsa;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Thread-safe hash map using lock striping.
+ * The key space is split across independent segments, each guarded by its own
+ * lock and holding a chained table. Writers only lock the segment they touch;
+ * {@link #get} never locks and relies on volatile reads of the bucket heads and
+ * node links. Iteration and {@link #forEach} are weakly consistent: they never
+ * throw ConcurrentModificationException and see every entry that was present
+ * for the whole traversal. Null keys and values are not supported.
+ */
+public class ConcurrentHashMap<K, V> implements Map<K, V> {
+  private static final int DEFAULT_STRIPES = 16;
+  private static final int DEFAULT_SEGMENT_CAPACITY = 16;
+  private static final float MAX_LOAD = 0.75f;
+
+  private static final class Node<K, V> {
+    final int hash;
+    final K key;
+    volatile V val;
+    volatile Node<K, V> next;
+
+    Node(int hash, K key, V val, Node<K, V> next) {
+      this.hash = hash;
+      this.key = key;
+      this.val = val;
+      this.next = next;
+    }
+  }
+
+  // The map is not Serializable, so neither is a segment in practice
+  @SuppressWarnings("serial")
+  private static final class Segment<K, V> extends ReentrantLock {
+    volatile AtomicReferenceArray<Node<K, V>> table;
+    volatile int count;
+
+    Segment(int cap) {
+      table = new AtomicReferenceArray<>(cap);
+    }
+
+    // Copies nodes instead of relinking them so readers still walking the old
+    // table keep seeing intact chains
+    void rehash() {
+      AtomicReferenceArray<Node<K, V>> old = table;
+      AtomicReferenceArray<Node<K, V>> tab = new AtomicReferenceArray<>(old.length() * 2);
+      int mask = tab.length() - 1;
+      for (int i = 0; i < old.length(); i++) {
+        for (Node<K, V> e = old.get(i); e != null; e = e.next) {
+          int idx = e.hash & mask;
+          tab.set(idx, new Node<>(e.hash, e.key, e.val, tab.get(idx)));
+        }
+      }
+      table = tab;
+    }
+  }
+
+  private final Segment<K, V>[] segments;
+  private final int segmentShift;
+
+  public ConcurrentHashMap() {
+    this(DEFAULT_STRIPES);
+  }
+
+  public ConcurrentHashMap(int stripes) {
+    int n = 1, bits = 0;
+    while (n < stripes) {
+      n <<= 1;
+      bits++;
+    }
+    segments = newSegments(n);
+    for (int i = 0; i < n; i++)
+      segments[i] = new Segment<>(DEFAULT_SEGMENT_CAPACITY);
+    segmentShift = 32 - bits;
+  }
+
+  // An array with room for n segments (generic arrays cannot be created directly)
+  @SuppressWarnings("unchecked")
+  private static <K, V> Segment<K, V>[] newSegments(int n) {
+    return (Segment<K, V>[]) new Segment<?, ?>[n];
+  }
+
+  private static int hash(Object key) {
+    int h = key.hashCode() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  // High bits pick the segment, low bits pick the bucket inside it
+  private Segment<K, V> segmentFor(int h) {
+    return segments.length == 1 ? segments[0] : segments[h >>> segmentShift];
+  }
+
+  private Node<K, V> findNode(Object key) {
+    int h = hash(key);
+    AtomicReferenceArray<Node<K, V>> tab = segmentFor(h).table;
+    for (Node<K, V> e = tab.get(h & (tab.length() - 1)); e != null; e = e.next) {
+      if (e.hash == h && key.equals(e.key))
+        return e;
+    }
+    return null;
+  }
+
+  private V putVal(K key, V value, boolean onlyIfAbsent) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(value);
+    int h = hash(key);
+    Segment<K, V> seg = segmentFor(h);
+    seg.lock();
+    try {
+      AtomicReferenceArray<Node<K, V>> tab = seg.table;
+      int idx = h & (tab.length() - 1);
+      for (Node<K, V> e = tab.get(idx); e != null; e = e.next) {
+        if (e.hash == h && key.equals(e.key)) {
+          V old = e.val;
+          if (!onlyIfAbsent)
+            e.val = value;
+          return old;
+        }
+      }
+      if (seg.count + 1 > tab.length() * MAX_LOAD) {
+        seg.rehash();
+        tab = seg.table;
+        idx = h & (tab.length() - 1);
+      }
+      tab.set(idx, new Node<>(h, key, value, tab.get(idx)));
+      seg.count = seg.count + 1;
+      return null;
+    } finally {
+      seg.unlock();
+    }
+  }
+
+  // === Map Interface Implementations ===
+
+  @Override
+  public int size() {
+    long total = 0;
+    for (Segment<K, V> seg : segments)
+      total += seg.count;
+    return (int) Math.min(total, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    for (Segment<K, V> seg : segments) {
+      if (seg.count != 0)
+        return false;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return findNode(key) != null;
+  }
+
+  @Override
+  public boolean containsValue(Object value) {
+    Objects.requireNonNull(value);
+    for (V v : values()) {
+      if (value.equals(v))
+        return true;
+    }
+    return false;
+  }
+
+  @Override
+  public V get(Object key) {
+    Node<K, V> e = findNode(key);
+    return e == null ? null : e.val;
+  }
+
+  @Override
+  public V put(K key, V value) {
+    return putVal(key, value, false);
+  }
+
+  @Override
+  public V putIfAbsent(K key, V value) {
+    return putVal(key, value, true);
+  }
+
+  @Override
+  public V remove(Object key) {
+    int h = hash(key);
+    Segment<K, V> seg = segmentFor(h);
+    seg.lock();
+    try {
+      AtomicReferenceArray<Node<K, V>> tab = seg.table;
+      int idx = h & (tab.length() - 1);
+      Node<K, V> prev = null;
+      for (Node<K, V> e = tab.get(idx); e != null; prev = e, e = e.next) {
+        if (e.hash == h && key.equals(e.key)) {
+          if (prev == null)
+            tab.set(idx, e.next);
+          else
+            prev.next = e.next;
+          seg.count = seg.count - 1;
+          return e.val;
+        }
+      }
+      return null;
+    } finally {
+      seg.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    for (Segment<K, V> seg : segments) {
+      seg.lock();
+      try {
+        seg.table = new AtomicReferenceArray<>(DEFAULT_SEGMENT_CAPACITY);
+        seg.count = 0;
+      } finally {
+        seg.unlock();
+      }
+    }
+  }
+
+  @Override
+  public Set<K> keySet() {
+    return new KeySet();
+  }
+
+  @Override
+  public Collection<V> values() {
+    return new Values();
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return new EntrySet();
+  }
+
+  @Override
+  public void putAll(Map<? extends K, ? extends V> m) {
+    for (Entry<? extends K, ? extends V> e : m.entrySet()) {
+      put(e.getKey(), e.getValue());
+    }
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    Objects.requireNonNull(action);
+    for (Segment<K, V> seg : segments) {
+      AtomicReferenceArray<Node<K, V>> tab = seg.table;
+      for (int i = 0; i < tab.length(); i++) {
+        for (Node<K, V> e = tab.get(i); e != null; e = e.next)
+          action.accept(e.key, e.val);
+      }
+    }
+  }
+
+  // ===== Weakly Consistent Views =====
+
+  private abstract class NodeIterator<E> implements Iterator<E> {
+    private int segIdx = 0;
+    private AtomicReferenceArray<Node<K, V>> tab = segments[0].table;
+    private int bucket = 0;
+    private Node<K, V> next;
+    private Node<K, V> last;
+
+    NodeIterator() {
+      advance();
+    }
+
+    private void advance() {
+      if (next != null)
+        next = next.next;
+      while (next == null) {
+        if (bucket < tab.length()) {
+          next = tab.get(bucket++);
+        } else if (++segIdx < segments.length) {
+          tab = segments[segIdx].table;
+          bucket = 0;
+        } else {
+          return;
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    Node<K, V> nextNode() {
+      if (next == null)
+        throw new NoSuchElementException();
+      last = next;
+      advance();
+      return last;
+    }
+
+    @Override
+    public void remove() {
+      if (last == null)
+        throw new IllegalStateException();
+      ConcurrentHashMap.this.remove(last.key);
+      last = null;
+    }
+  }
+
+  private final class KeySet extends AbstractSet<K> {
+    @Override
+    public Iterator<K> iterator() {
+      return new NodeIterator<K>() {
+        @Override
+        public K next() {
+          return nextNode().key;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return ConcurrentHashMap.this.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return containsKey(o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      return ConcurrentHashMap.this.remove(o) != null;
+    }
+
+    @Override
+    public void clear() {
+      ConcurrentHashMap.this.clear();
+    }
+  }
+
+  private final class Values extends AbstractCollection<V> {
+    @Override
+    public Iterator<V> iterator() {
+      return new NodeIterator<V>() {
+        @Override
+        public V next() {
+          return nextNode().val;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return ConcurrentHashMap.this.size();
+    }
+
+    @Override
+    public void clear() {
+      ConcurrentHashMap.this.clear();
+    }
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<K, V>> {
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+      return new NodeIterator<Entry<K, V>>() {
+        @Override
+        public Entry<K, V> next() {
+          Node<K, V> e = nextNode();
+          return new MapEntry(e.key, e.val);
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return ConcurrentHashMap.this.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      if (!(o instanceof Entry))
+        return false;
+      Entry<?, ?> e = (Entry<?, ?>) o;
+      V v = e.getKey() == null ? null : get(e.getKey());
+      return v != null && v.equals(e.getValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      if (!contains(o))
+        return false;
+      return ConcurrentHashMap.this.remove(((Entry<?, ?>) o).getKey()) != null;
+    }
+
+    @Override
+    public void clear() {
+      ConcurrentHashMap.this.clear();
+    }
+  }
+
+  private final class MapEntry implements Map.Entry<K, V> {
+    private final K key;
+    private V val;
+
+    MapEntry(K key, V val) {
+      this.key = key;
+      this.val = val;
+    }
+
+    @Override
+    public K getKey() {
+      return key;
+    }
+
+    @Override
+    public V getValue() {
+      return val;
+    }
+
+    @Override
+    public V setValue(V v) {
+      V old = val;
+      val = v;
+      put(key, v);
+      return old;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Map.Entry))
+        return false;
+      Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+      return Objects.equals(key, e.getKey()) && Objects.equals(val, e.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(key) ^ Objects.hashCode(val);
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + val;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package gms.dsa;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Stack of primitive doubles backed by a growable array.
+ * push/pop/peek and both traversals never allocate once the array has grown,
+ * unlike {@link Stack} which needs a boxed value and a list node per push.
+ */
+public class DoubleStack {
+  private static final double[] EMPTY = {};
+
+  private double[] data = EMPTY;
+  private int size;
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void push(double v) {
+    if (size == data.length)
+      data = Arrays.copyOf(data, Math.max(4, size * 2));
+    data[size++] = v;
+  }
+
+  // Pushes src[off, off + len) in order, growing the array at most once
+  public void pushAll(double[] src, int off, int len) {
+    if (size + len > data.length)
+      data = Arrays.copyOf(data, Math.max(size + len, size == 0 ? 0 : size * 2));
+    System.arraycopy(src, off, data, size, len);
+    size += len;
+  }
+
+  public boolean pop() {
+    if (isEmpty())
+      return false;
+    size--;
+    return true;
+  }
+
+  public double peek() {
+    if (isEmpty())
+      throw new IllegalStateException("Stack underflow");
+    return data[size - 1];
+  }
+
+  // i = 0 is the oldest value
+  public double get(int i) {
+    if (i < 0 || i >= size)
+      throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+    return data[i];
+  }
+
+  // top -> bottom
+  public void forEachNewestFirst(DoubleConsumer action) {
+    for (int i = size - 1; i >= 0; i--)
+      action.accept(data[i]);
+  }
+
+  // bottom -> top
+  public void forEachOldestFirst(DoubleConsumer action) {
+    for (int i = 0; i < size; i++)
+      action.accept(data[i]);
+  }
+
+  public void display() {
+    if (isEmpty()) {
+      System.out.print("(none)");
+    }
+    for (int i = size - 1; i >= 0; i--) {
+      System.out.print(data[i]);
+      if (i > 0) {
+        System.out.print(", ");
+      }
+    }
+  }
+}
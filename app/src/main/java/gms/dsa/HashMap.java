@@ -1,88 +1,255 @@
 package gms.dsa;
 
-import java.util.AbstractMap;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.List;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiConsumer;
 
+/**
+ * Open-addressing hash map using Robin Hood linear probing.
+ * Keys, values and their mixed hashes live in parallel arrays whose length is
+ * always a power of two, so a slot is picked with {@code hash & mask}.
+ * Removal uses backward shifting, so the table never holds tombstones.
+ * Comparable keys that would land more than {@code TREEIFY_THRESHOLD} slots
+ * from home spill into a balanced {@link TreeBin}, which bounds lookups at
+ * O(log n) even when many keys share a hashCode.
+ * {@link #keySet()}, {@link #values()} and {@link #entrySet()} are live views.
+ *
+ * In incremental resize mode a full table is not rehashed in one go: the old
+ * arrays are kept next to the new ones and every later operation migrates a
+ * bounded number of slots, while lookups check both tables until it is done.
+ */
 public class HashMap<K, V> implements Map<K, V> {
-  private static final class Node<K, V> implements Map.Entry<K, V> {
-    K key;
-    V val;
-    Node<K, V> next;
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final int MIN_CAPACITY = 4;
+  private static final int MIGRATE_STEP = 64;
+  private static final int TREEIFY_THRESHOLD = 16;
+  private static final Object NULL_KEY = new Object();
+  private static final Object TOMBSTONE = new Object();
 
-    Node(K k, V v) {
-      key = k;
-      val = v;
-    }
+  private Object[] keys;
+  private Object[] vals;
+  private int[] hashes;
+  private int mask;
+  private int size;
+  private int threshold;
+  private int modCount;
+  private float maxLoad = 0.75f;
 
-    @Override
-    public K getKey() {
-      return key;
-    }
+  private final boolean incremental;
+  // Table being drained during an incremental resize (null otherwise)
+  private Object[] oldKeys;
+  private Object[] oldVals;
+  private int[] oldHashes;
+  private int migrated;
 
-    @Override
-    public V getValue() {
-      return val;
-    }
+  private final TreeBin overflow = new TreeBin();
 
-    @Override
-    public V setValue(V v) {
-      V old = val;
-      val = v;
-      return old;
-    }
+  public HashMap() {
+    this(DEFAULT_CAPACITY);
   }
 
-  private Node<K, V>[] buckets;
-  private int size;
-  private float maxLoad = 0.75f;
+  public HashMap(int n) {
+    this(n, false);
+  }
 
-  @SuppressWarnings("unchecked")
-  public HashMap() {
-    buckets = (Node<K, V>[]) new Node[16];
+  public HashMap(int n, boolean incrementalResize) {
+    incremental = incrementalResize;
+    allocate(capacityFor(n));
   }
 
-  @SuppressWarnings("unchecked")
-  public HashMap(int n) {
-    buckets = (Node<K, V>[]) new Node[n];
+  // ===== Hashing Helpers =====
+
+  private static int capacityFor(int n) {
+    int cap = MIN_CAPACITY;
+    while (cap < n && cap < (1 << 30))
+      cap <<= 1;
+    return cap;
   }
 
-  private int idxFor(Object key, int mod) {
-    return (key == null ? 0 : (key.hashCode() & 0x7fffffff)) % mod;
+  private void allocate(int cap) {
+    keys = new Object[cap];
+    vals = new Object[cap];
+    hashes = new int[cap];
+    mask = cap - 1;
+    threshold = Math.min((int) (cap * maxLoad), cap - 1);
+  }
+
+  private static Object maskNull(Object key) {
+    return key == null ? NULL_KEY : key;
   }
 
   @SuppressWarnings("unchecked")
-  private void rehashIfNeeded() {
-    float lf = (float) size / (float) buckets.length;
-    if (lf <= maxLoad)
+  private static <K> K unmaskNull(Object key) {
+    return key == NULL_KEY ? null : (K) key;
+  }
+
+  // Spreads the high bits of hashCode() into the low bits used by the mask
+  private static int hash(Object key) {
+    int h = key.hashCode() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private int distance(int slot) {
+    return (slot - hashes[slot]) & mask;
+  }
+
+  private int findSlot(Object key) {
+    Object k = maskNull(key);
+    int h = hash(k);
+    int limit = TreeBin.accepts(k) ? TREEIFY_THRESHOLD : Integer.MAX_VALUE;
+    int slot = h & mask;
+    for (int dist = 0;; dist++) {
+      Object cur = keys[slot];
+      if (cur == null || dist > limit || distance(slot) < dist)
+        return -1;
+      if (hashes[slot] == h && (cur == k || cur.equals(k)))
+        return slot;
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  private void insert(Object k, Object v, int h) {
+    int slot = h & mask;
+    for (int dist = 0;; dist++) {
+      if (dist > TREEIFY_THRESHOLD && TreeBin.accepts(k)) {
+        overflow.insert(k, v, h);
+        return;
+      }
+      if (keys[slot] == null) {
+        keys[slot] = k;
+        vals[slot] = v;
+        hashes[slot] = h;
+        return;
+      }
+      int curDist = distance(slot);
+      if (curDist < dist) {
+        // Robin Hood: the richer resident gives up its slot and keeps probing
+        Object tk = keys[slot], tv = vals[slot];
+        int th = hashes[slot];
+        keys[slot] = k;
+        vals[slot] = v;
+        hashes[slot] = h;
+        k = tk;
+        v = tv;
+        h = th;
+        dist = curDist;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  private void removeAt(int slot) {
+    int next = (slot + 1) & mask;
+    while (keys[next] != null && distance(next) > 0) {
+      keys[slot] = keys[next];
+      vals[slot] = vals[next];
+      hashes[slot] = hashes[next];
+      slot = next;
+      next = (next + 1) & mask;
+    }
+    keys[slot] = null;
+    vals[slot] = null;
+    hashes[slot] = 0;
+    size--;
+    modCount++;
+  }
+
+  private void resize(int cap) {
+    finishMigration();
+    Object[] ks = keys, vs = vals;
+    int[] hs = hashes;
+    allocate(cap);
+    if (incremental) {
+      oldKeys = ks;
+      oldVals = vs;
+      oldHashes = hs;
+      migrated = 0;
+      migrate(MIGRATE_STEP);
       return;
+    }
+    for (int i = 0; i < ks.length; i++) {
+      if (ks[i] != null)
+        insert(ks[i], vs[i], hs[i]);
+    }
+  }
 
-    Node<K, V>[] old = buckets;
-    buckets = (Node<K, V>[]) new Node[old.length * 2];
+  // ===== Incremental Resize =====
 
-    for (Node<K, V> head : old) {
-      for (Node<K, V> cur = head; cur != null;) {
-        Node<K, V> nxt = cur.next;
-        int idx = idxFor(cur.key, buckets.length);
-        cur.next = buckets[idx];
-        buckets[idx] = cur;
-        cur = nxt;
+  private boolean migrating() {
+    return oldKeys != null;
+  }
+
+  // Moves up to `slots` old slots into the new table. Moved slots become
+  // tombstones so probe chains in the old table stay intact until it is dropped
+  private void migrate(int slots) {
+    int end = Math.min(migrated + slots, oldKeys.length);
+    for (; migrated < end; migrated++) {
+      Object k = oldKeys[migrated];
+      if (k != null && k != TOMBSTONE) {
+        insert(k, oldVals[migrated], oldHashes[migrated]);
+        oldKeys[migrated] = TOMBSTONE;
+        oldVals[migrated] = null;
       }
     }
+    if (migrated == oldKeys.length) {
+      oldKeys = null;
+      oldVals = null;
+      oldHashes = null;
+    }
   }
 
-  private Node<K, V> findNode(Object key) {
-    int i = idxFor(key, buckets.length);
-    for (Node<K, V> cur = buckets[i]; cur != null; cur = cur.next) {
-      if ((key == null && cur.key == null) || (key != null && key.equals(cur.key)))
-        return cur;
+  private void finishMigration() {
+    if (migrating())
+      migrate(oldKeys.length);
+  }
+
+  private int findOldSlot(Object key) {
+    if (!migrating())
+      return -1;
+    Object k = maskNull(key);
+    int h = hash(k);
+    int oldMask = oldKeys.length - 1;
+    for (int slot = h & oldMask;; slot = (slot + 1) & oldMask) {
+      Object cur = oldKeys[slot];
+      if (cur == null)
+        return -1;
+      if (cur != TOMBSTONE && oldHashes[slot] == h && (cur == k || cur.equals(k)))
+        return slot;
+    }
+  }
+
+  // ===== Overflow Tree =====
+
+  private TreeBin.Node findTree(Object key) {
+    if (overflow.size() == 0)
+      return null;
+    Object k = maskNull(key);
+    return overflow.find(k, hash(k));
+  }
+
+  private void removeTree(TreeBin.Node n) {
+    overflow.remove(n.key, n.hash);
+    size--;
+    modCount++;
+  }
+
+  // First empty slot; iteration starts right after it so that backward shifts
+  // during Iterator.remove() never move an unvisited entry behind the cursor.
+  // Any pending migration is completed first so entries cannot move between
+  // tables underneath an iterator.
+  private int startSlot() {
+    finishMigration();
+    for (int i = 0;; i++) {
+      if (keys[i] == null)
+        return i;
     }
-    return null;
   }
 
   // === Map Interface Implementations ===
@@ -99,88 +266,131 @@ public class HashMap<K, V> implements Map<K, V> {
 
   @Override
   public boolean containsKey(Object key) {
-    return findNode(key) != null;
+    if (migrating())
+      migrate(MIGRATE_STEP);
+    return findSlot(key) >= 0 || findOldSlot(key) >= 0 || findTree(key) != null;
   }
 
   @Override
   public boolean containsValue(Object value) {
-    for (Node<K, V> head : buckets) {
-      for (Node<K, V> cur = head; cur != null; cur = cur.next) {
-        if ((value == null && cur.val == null) ||
-            (value != null && value.equals(cur.val)))
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != null && Objects.equals(value, vals[i]))
+        return true;
+    }
+    if (migrating()) {
+      for (int i = migrated; i < oldKeys.length; i++) {
+        if (oldKeys[i] != null && oldKeys[i] != TOMBSTONE && Objects.equals(value, oldVals[i]))
           return true;
       }
     }
-    return false;
+    boolean[] found = { false };
+    overflow.forEach((k, v) -> found[0] |= Objects.equals(value, v));
+    return found[0];
   }
 
   @Override
   public V get(Object key) {
-    Node<K, V> n = findNode(key);
-    return (n == null) ? null : n.val;
+    return getOrDefault(key, null);
   }
 
   @Override
+  @SuppressWarnings("unchecked")
+  public V getOrDefault(Object key, V defaultValue) {
+    if (migrating())
+      migrate(MIGRATE_STEP);
+    int slot = findSlot(key);
+    if (slot >= 0)
+      return (V) vals[slot];
+    slot = findOldSlot(key);
+    if (slot >= 0)
+      return (V) oldVals[slot];
+    TreeBin.Node n = findTree(key);
+    return (n == null) ? defaultValue : (V) n.val;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
   public V put(K key, V value) {
-    Node<K, V> n = findNode(key);
+    if (migrating())
+      migrate(MIGRATE_STEP);
+    int slot = findSlot(key);
+    if (slot >= 0) {
+      V old = (V) vals[slot];
+      vals[slot] = value;
+      return old; // return old value!
+    }
+    slot = findOldSlot(key);
+    if (slot >= 0) {
+      V old = (V) oldVals[slot];
+      oldVals[slot] = value;
+      return old;
+    }
+    TreeBin.Node n = findTree(key);
     if (n != null) {
-      return n.setValue(value); // return old value!
-    }
-    rehashIfNeeded();
-    int i = idxFor(key, buckets.length);
-    Node<K, V> head = buckets[i];
-    Node<K, V> ins = new Node<>(key, value);
-    ins.next = head;
-    buckets[i] = ins;
+      V old = (V) n.val;
+      n.val = value;
+      return old;
+    }
+    if (size - overflow.size() >= threshold)
+      resize(keys.length * 2);
+    Object k = maskNull(key);
+    insert(k, value, hash(k));
     size++;
+    modCount++;
     return null; // no previous value
   }
 
   @Override
+  @SuppressWarnings("unchecked")
   public V remove(Object key) {
-    int i = idxFor(key, buckets.length);
-    Node<K, V> cur = buckets[i], prev = null;
-    while (cur != null) {
-      if ((key == null && cur.key == null) || (key != null && key.equals(cur.key))) {
-        if (prev == null)
-          buckets[i] = cur.next;
-        else
-          prev.next = cur.next;
-        size--;
-        return cur.val; // return removed value
-      }
-      prev = cur;
-      cur = cur.next;
+    if (migrating())
+      migrate(MIGRATE_STEP);
+    int slot = findSlot(key);
+    if (slot >= 0) {
+      V old = (V) vals[slot];
+      removeAt(slot);
+      return old; // return removed value
+    }
+    slot = findOldSlot(key);
+    if (slot >= 0) {
+      V old = (V) oldVals[slot];
+      oldKeys[slot] = TOMBSTONE;
+      oldVals[slot] = null;
+      size--;
+      modCount++;
+      return old;
     }
-    return null;
+    TreeBin.Node n = findTree(key);
+    if (n == null)
+      return null;
+    removeTree(n);
+    return (V) n.val;
   }
 
   @Override
-  @SuppressWarnings("unchecked")
   public void clear() {
-    buckets = (Node<K, V>[]) new Node[16];
+    oldKeys = null;
+    oldVals = null;
+    oldHashes = null;
+    overflow.clear();
+    allocate(DEFAULT_CAPACITY);
     size = 0;
+    modCount++;
   }
 
   @Override
   public Set<K> keySet() {
-    Set<K> ks = new HashSet<>();
-    forEach((k, v) -> ks.add(k));
-    return ks;
+    return new KeySet();
   }
 
   @Override
   public Collection<V> values() {
-    List<V> vs = new DoublyLinkedList<>();
-    forEach((k, v) -> vs.add(v));
-    return vs;
+    return new Values();
   }
 
   @Override
   public Set<Entry<K, V>> entrySet() {
-    Set<Entry<K, V>> es = new HashSet<>();
-    forEach((k, v) -> es.add(new AbstractMap.SimpleEntry<>(k, v)));
-    return es;
+    return new EntrySet();
   }
 
   @Override
@@ -193,13 +403,234 @@ public class HashMap<K, V> implements Map<K, V> {
   }
 
   @Override
+  @SuppressWarnings("unchecked")
   public void forEach(BiConsumer<? super K, ? super V> action) {
     Objects.requireNonNull(action);
+    finishMigration();
+
+    Object[] ks = keys, vs = vals;
+    for (int i = 0; i < ks.length; i++) {
+      if (ks[i] != null)
+        action.accept(unmaskNull(ks[i]), (V) vs[i]);
+    }
+    overflow.forEach((k, v) -> action.accept(unmaskNull(k), (V) v));
+  }
+
+  // ===== Live Views =====
+
+  // Walks the table in probe order, then the overflow tree in key order
+  private abstract class MapIterator<E> implements Iterator<E> {
+    private final int start = startSlot();
+    private int visited = 0; // slots consumed so far, in probe order
+    private TreeBin.Node treeNext;
+    private boolean inTree;
+    private int lastSlot = -1;
+    private TreeBin.Node lastNode;
+    private int expectedModCount = modCount;
+    Object lastKey, lastVal;
 
-    for (Node<K, V> head : buckets) {
-      for (Node<K, V> cur = head; cur != null; cur = cur.next) {
-        action.accept(cur.key, cur.val);
+    private int slotAt(int k) {
+      return (start + 1 + k) & mask;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (visited < keys.length && keys[slotAt(visited)] == null)
+        visited++;
+      if (visited < keys.length)
+        return true;
+      if (!inTree) {
+        treeNext = overflow.higher(null, 0);
+        inTree = true;
+      }
+      return treeNext != null;
+    }
+
+    void advance() {
+      if (modCount != expectedModCount)
+        throw new ConcurrentModificationException();
+      if (!hasNext())
+        throw new NoSuchElementException();
+      if (!inTree) {
+        lastSlot = slotAt(visited++);
+        lastKey = keys[lastSlot];
+        lastVal = vals[lastSlot];
+      } else {
+        lastNode = treeNext;
+        treeNext = overflow.higher(lastNode.key, lastNode.hash);
+        lastKey = lastNode.key;
+        lastVal = lastNode.val;
       }
     }
+
+    @Override
+    public void remove() {
+      if (lastSlot < 0 && lastNode == null)
+        throw new IllegalStateException();
+      if (modCount != expectedModCount)
+        throw new ConcurrentModificationException();
+      if (lastNode != null) {
+        removeTree(lastNode);
+      } else {
+        removeAt(lastSlot);
+        if (keys[lastSlot] != null)
+          visited--; // an unvisited entry was shifted into this slot
+      }
+      lastSlot = -1;
+      lastNode = null;
+      expectedModCount = modCount;
+    }
+  }
+
+  private final class KeySet extends AbstractSet<K> {
+    @Override
+    public Iterator<K> iterator() {
+      return new MapIterator<K>() {
+        @Override
+        public K next() {
+          advance();
+          return unmaskNull(lastKey);
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return containsKey(o);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      if (!containsKey(o))
+        return false;
+      HashMap.this.remove(o);
+      return true;
+    }
+
+    @Override
+    public void clear() {
+      HashMap.this.clear();
+    }
+  }
+
+  private final class Values extends AbstractCollection<V> {
+    @Override
+    public Iterator<V> iterator() {
+      return new MapIterator<V>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+          advance();
+          return (V) lastVal;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return containsValue(o);
+    }
+
+    @Override
+    public void clear() {
+      HashMap.this.clear();
+    }
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<K, V>> {
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+      return new MapIterator<Entry<K, V>>() {
+        @Override
+        public Entry<K, V> next() {
+          advance();
+          return new MapEntry(lastKey, lastVal);
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      if (!(o instanceof Entry))
+        return false;
+      Entry<?, ?> e = (Entry<?, ?>) o;
+      return containsKey(e.getKey()) && Objects.equals(get(e.getKey()), e.getValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+      if (!contains(o))
+        return false;
+      HashMap.this.remove(((Entry<?, ?>) o).getKey());
+      return true;
+    }
+
+    @Override
+    public void clear() {
+      HashMap.this.clear();
+    }
+  }
+
+  // Writes through to the map by key, so it stays valid if slots get shifted
+  private final class MapEntry implements Map.Entry<K, V> {
+    private final K key;
+    private V val;
+
+    @SuppressWarnings("unchecked")
+    MapEntry(Object k, Object v) {
+      key = unmaskNull(k);
+      val = (V) v;
+    }
+
+    @Override
+    public K getKey() {
+      return key;
+    }
+
+    @Override
+    public V getValue() {
+      return val;
+    }
+
+    @Override
+    public V setValue(V v) {
+      V old = val;
+      val = v;
+      put(key, v);
+      return old;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Map.Entry))
+        return false;
+      Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+      return Objects.equals(key, e.getKey()) && Objects.equals(val, e.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(key) ^ Objects.hashCode(val);
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + val;
+    }
   }
 }
@@ -0,0 +1,147 @@
+package gms.dsa;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from primitive int keys to primitive double values.
+ * Nothing is boxed on get/put, which matters for per-semester values such as
+ * SGPA that are written on every grade computation.
+ */
+public class IntDoubleMap {
+  @FunctionalInterface
+  public interface Visitor {
+    void accept(int key, double value);
+  }
+
+  private static final int MIN_CAPACITY = 4;
+
+  private int[] keys;
+  private double[] vals;
+  private boolean[] used;
+  private int mask;
+  private int size;
+
+  public IntDoubleMap() {
+    this(8);
+  }
+
+  public IntDoubleMap(int n) {
+    int cap = MIN_CAPACITY;
+    while (cap < n * 2)
+      cap <<= 1;
+    allocate(cap);
+  }
+
+  private void allocate(int cap) {
+    keys = new int[cap];
+    vals = new double[cap];
+    used = new boolean[cap];
+    mask = cap - 1;
+  }
+
+  private static int hash(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private int findSlot(int key) {
+    for (int slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+      if (!used[slot])
+        return -1;
+      if (keys[slot] == key)
+        return slot;
+    }
+  }
+
+  private void insert(int key, double val) {
+    int slot = hash(key) & mask;
+    while (used[slot])
+      slot = (slot + 1) & mask;
+    keys[slot] = key;
+    vals[slot] = val;
+    used[slot] = true;
+  }
+
+  private void resize() {
+    int[] ks = keys;
+    double[] vs = vals;
+    boolean[] us = used;
+    allocate(ks.length * 2);
+    for (int i = 0; i < ks.length; i++) {
+      if (us[i])
+        insert(ks[i], vs[i]);
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean containsKey(int key) {
+    return findSlot(key) >= 0;
+  }
+
+  public double get(int key, double defaultValue) {
+    int slot = findSlot(key);
+    return slot < 0 ? defaultValue : vals[slot];
+  }
+
+  // Returns the previous value, or NaN if the key was absent
+  public double put(int key, double val) {
+    int slot = findSlot(key);
+    if (slot >= 0) {
+      double old = vals[slot];
+      vals[slot] = val;
+      return old;
+    }
+    if ((size + 1) * 4 > keys.length * 3)
+      resize();
+    insert(key, val);
+    size++;
+    return Double.NaN;
+  }
+
+  public boolean remove(int key) {
+    int slot = findSlot(key);
+    if (slot < 0)
+      return false;
+    // Backward-shift the rest of the cluster so no tombstones are needed
+    int gap = slot;
+    for (int next = (gap + 1) & mask; used[next]; next = (next + 1) & mask) {
+      int home = hash(keys[next]) & mask;
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        keys[gap] = keys[next];
+        vals[gap] = vals[next];
+        gap = next;
+      }
+    }
+    used[gap] = false;
+    size--;
+    return true;
+  }
+
+  public void clear() {
+    Arrays.fill(used, false);
+    size = 0;
+  }
+
+  public double sum() {
+    double total = 0;
+    for (int i = 0; i < keys.length; i++) {
+      if (used[i])
+        total += vals[i];
+    }
+    return total;
+  }
+
+  public void forEach(Visitor action) {
+    for (int i = 0; i < keys.length; i++) {
+      if (used[i])
+        action.accept(keys[i], vals[i]);
+    }
+  }
+}
@@ -1,11 +1,26 @@
 package gms.dsa;
 
 import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class MergeSort {
+  // Below this many nodes per worker, forking costs more than it saves
+  private static final int MIN_PARALLEL_RUN = 4096;
+  // Natural runs shorter than this are extended by insertion before merging
+  private static final int MIN_RUN = 32;
 
-  private static <T> DoublyLinkedList.Node<T> mergeNodes(DoublyLinkedList.Node<T> a, DoublyLinkedList.Node<T> b,
-      Comparator<T> comp) {
+  // A detached chain of nodes with both ends known
+  private static final class Run<T> {
+    DoublyLinkedList.Node<T> head;
+    DoublyLinkedList.Node<T> tail;
+    int len;
+  }
+
+  // Merges two detached, sorted chains into `out`. The tail of the result is
+  // whichever input tail ends up last, so nothing is walked twice
+  private static <T> void mergeNodes(DoublyLinkedList.Node<T> a, DoublyLinkedList.Node<T> aTail,
+      DoublyLinkedList.Node<T> b, DoublyLinkedList.Node<T> bTail, Comparator<T> comp, Run<T> out) {
     DoublyLinkedList.Node<T> head = null;
     DoublyLinkedList.Node<T> tail = null;
 
@@ -27,34 +42,87 @@ public class MergeSort {
     }
 
     DoublyLinkedList.Node<T> remaining = (a != null) ? a : b;
-    if (tail != null) {
-      tail.next = remaining;
-      if (remaining != null)
+    if (remaining != null) {
+      if (tail != null) {
+        tail.next = remaining;
         remaining.prev = tail;
-    } else {
-      head = remaining;
+      } else {
+        head = remaining;
+      }
+      tail = (a != null) ? aTail : bTail;
     }
 
-    return head;
+    out.head = head;
+    out.tail = tail;
   }
 
-  private static <T> DoublyLinkedList.Node<T> split(DoublyLinkedList.Node<T> head, int halfLen) {
-    if (head == null)
-      return null;
+  // An array of n empty slots (generic arrays cannot be created directly)
+  @SuppressWarnings("unchecked")
+  private static <T> Run<T>[] newRuns(int n) {
+    return (Run<T>[]) new Run<?>[n];
+  }
 
+  // Returns the last node of the first `len` nodes starting at head
+  private static <T> DoublyLinkedList.Node<T> advance(DoublyLinkedList.Node<T> head, int len) {
     DoublyLinkedList.Node<T> current = head;
-    for (int i = 1; i < halfLen && current.next != null; i++) {
+    for (int i = 1; i < len && current.next != null; i++) {
       current = current.next;
     }
+    return current;
+  }
+
+  // Bottom-up merge sort of a detached chain of n nodes; result lands in `out`
+  private static <T> void sortChain(DoublyLinkedList.Node<T> first, int n, Comparator<T> comp, Run<T> out) {
+    Run<T> merged = new Run<>();
+    DoublyLinkedList.Node<T> head = first;
+    DoublyLinkedList.Node<T> tail = advance(first, n);
+
+    for (int subListSize = 1; subListSize < n; subListSize *= 2) {
+
+      DoublyLinkedList.Node<T> newHead = null;
+      tail = null;
+      DoublyLinkedList.Node<T> current = head;
 
-    if (current.next == null)
-      return null;
+      while (current != null) {
+
+        DoublyLinkedList.Node<T> left = current;
+        DoublyLinkedList.Node<T> leftTail = advance(left, subListSize);
+        DoublyLinkedList.Node<T> right = leftTail.next;
+        DoublyLinkedList.Node<T> nextStart = null;
+
+        if (right == null) {
+          merged.head = left;
+          merged.tail = leftTail;
+        } else {
+          leftTail.next = null;
+          right.prev = null;
+          DoublyLinkedList.Node<T> rightTail = advance(right, subListSize);
+          nextStart = rightTail.next;
+          if (nextStart != null) {
+            rightTail.next = null;
+            nextStart.prev = null;
+          }
+          mergeNodes(left, leftTail, right, rightTail, comp, merged);
+        }
 
-    DoublyLinkedList.Node<T> secondHead = current.next;
-    current.next = null;
-    secondHead.prev = null;
+        if (newHead == null) {
+          newHead = merged.head;
+          merged.head.prev = null;
+        } else {
+          tail.next = merged.head;
+          merged.head.prev = tail;
+        }
+        tail = merged.tail;
+
+        current = nextStart;
+      }
 
-    return secondHead;
+      head = newHead;
+    }
+
+    out.head = head;
+    out.tail = tail;
+    out.len = n;
   }
 
   public static <T> void sort(DoublyLinkedList<T> list, Comparator<T> comp) {
@@ -62,42 +130,271 @@ public class MergeSort {
       return;
     }
 
-    int n = list.size();
+    Run<T> run = new Run<>();
+    sortChain(list.head, list.size(), comp, run);
+    list.head = run.head;
+    list.tail = run.tail;
+  }
 
-    for (int subListSize = 1; subListSize < n; subListSize *= 2) {
+  // ===== Adaptive (natural runs) =====
 
-      DoublyLinkedList.Node<T> newHead = null;
-      DoublyLinkedList.Node<T> tail = null;
-      DoublyLinkedList.Node<T> current = list.head;
+  // Reverses a detached chain in place and swaps head/tail in `r`
+  private static <T> void reverse(Run<T> r) {
+    DoublyLinkedList.Node<T> cur = r.head;
+    while (cur != null) {
+      DoublyLinkedList.Node<T> next = cur.next;
+      cur.next = cur.prev;
+      cur.prev = next;
+      cur = next;
+    }
+    DoublyLinkedList.Node<T> h = r.head;
+    r.head = r.tail;
+    r.tail = h;
+  }
 
-      while (current != null) {
+  // Inserts a single node into a sorted detached run after every element that
+  // is <= it, scanning back from the tail (keeps the sort stable)
+  private static <T> void insert(Run<T> r, DoublyLinkedList.Node<T> n, Comparator<T> comp) {
+    DoublyLinkedList.Node<T> after = r.tail;
+    while (after != null && comp.compare(after.data, n.data) > 0)
+      after = after.prev;
 
-        DoublyLinkedList.Node<T> left = current;
-        DoublyLinkedList.Node<T> right = split(left, subListSize);
+    if (after == null) {
+      n.prev = null;
+      n.next = r.head;
+      r.head.prev = n;
+      r.head = n;
+    } else {
+      n.prev = after;
+      n.next = after.next;
+      if (after.next != null)
+        after.next.prev = n;
+      else
+        r.tail = n;
+      after.next = n;
+    }
+    r.len++;
+  }
 
-        DoublyLinkedList.Node<T> nextStart = split(right, subListSize);
+  // Detaches the next natural run starting at `start`: a non-descending run
+  // as-is, or a strictly descending one reversed. Short runs are topped up to
+  // MIN_RUN by insertion. Returns the first node after the run.
+  private static <T> DoublyLinkedList.Node<T> nextRun(DoublyLinkedList.Node<T> start, Comparator<T> comp,
+      Run<T> r) {
+    DoublyLinkedList.Node<T> end = start;
+    int len = 1;
+    if (end.next != null && comp.compare(end.next.data, end.data) < 0) {
+      while (end.next != null && comp.compare(end.next.data, end.data) < 0) {
+        end = end.next;
+        len++;
+      }
+    } else {
+      while (end.next != null && comp.compare(end.next.data, end.data) >= 0) {
+        end = end.next;
+        len++;
+      }
+    }
 
-        DoublyLinkedList.Node<T> merged = mergeNodes(left, right, comp);
+    DoublyLinkedList.Node<T> rest = end.next;
+    end.next = null;
+    if (rest != null)
+      rest.prev = null;
+    start.prev = null;
 
-        if (newHead == null) {
-          newHead = merged;
-        } else {
-          tail.next = merged;
-          merged.prev = tail;
-        }
+    r.head = start;
+    r.tail = end;
+    r.len = len;
+    if (comp.compare(end.data, start.data) < 0)
+      reverse(r);
 
-        DoublyLinkedList.Node<T> temp = merged;
-        while (temp != null && temp.next != null) {
-          temp = temp.next;
+    while (r.len < MIN_RUN && rest != null) {
+      DoublyLinkedList.Node<T> n = rest;
+      rest = rest.next;
+      if (rest != null)
+        rest.prev = null;
+      insert(r, n, comp);
+    }
+    return rest;
+  }
+
+  private static <T> void mergeAt(Run<T>[] stack, int i, Comparator<T> comp) {
+    Run<T> a = stack[i], b = stack[i + 1];
+    int len = a.len + b.len;
+    mergeNodes(a.head, a.tail, b.head, b.tail, comp, a);
+    a.len = len;
+  }
+
+  // Natural merge sort on a detached chain. Runs already present in the input
+  // are kept whole and merged TimSort-style (run lengths on the stack shrink
+  // geometrically), so sorted or nearly sorted input costs close to O(n)
+  private static <T> void adaptiveChain(DoublyLinkedList.Node<T> first, int n, Comparator<T> comp, Run<T> out) {
+    Run<T>[] stack = newRuns(64);
+    int top = 0;
+
+    DoublyLinkedList.Node<T> current = first;
+    while (current != null) {
+      Run<T> r = new Run<>();
+      current = nextRun(current, comp, r);
+      stack[top++] = r;
+
+      // Keep |Z| > |Y| + |X| and |Y| > |X| for the top three runs X, Y, Z
+      while (top > 1) {
+        int y = top - 2;
+        if (y > 0 && stack[y - 1].len <= stack[y].len + stack[y + 1].len) {
+          if (stack[y - 1].len < stack[y + 1].len)
+            y--;
+        } else if (stack[y].len > stack[y + 1].len) {
+          break;
         }
-        tail = temp;
+        mergeAt(stack, y, comp);
+        for (int i = y + 1; i < top - 1; i++)
+          stack[i] = stack[i + 1];
+        top--;
+      }
+    }
 
-        current = nextStart;
+    while (top > 1) {
+      mergeAt(stack, top - 2, comp);
+      top--;
+    }
+
+    out.head = stack[0].head;
+    out.tail = stack[0].tail;
+    out.len = n;
+  }
+
+  /**
+   * Stable natural merge sort. Detects ascending and strictly descending runs
+   * that already exist in the list and merges only those, so re-sorting a
+   * ranking where a few students moved is close to linear.
+   */
+  public static <T> void adaptiveSort(DoublyLinkedList<T> list, Comparator<T> comp) {
+    if (list == null || list.head == null || list.head.next == null) {
+      return;
+    }
+
+    Run<T> run = new Run<>();
+    adaptiveChain(list.head, list.size(), comp, run);
+    list.head = run.head;
+    list.tail = run.tail;
+  }
+
+  // ===== Parallel (fork/join) =====
+
+  // Sorts runs[lo, hi) and leaves the merged result in runs[lo]. Never
+  // serialized, like any pool task here.
+  @SuppressWarnings("serial")
+  private static final class SortTask<T> extends RecursiveAction {
+    private final Run<T>[] runs;
+    private final int lo, hi;
+    private final Comparator<T> comp;
+
+    SortTask(Run<T>[] runs, int lo, int hi, Comparator<T> comp) {
+      this.runs = runs;
+      this.lo = lo;
+      this.hi = hi;
+      this.comp = comp;
+    }
+
+    @Override
+    protected void compute() {
+      if (hi - lo == 1) {
+        Run<T> r = runs[lo];
+        adaptiveChain(r.head, r.len, comp, r);
+        return;
       }
+      int mid = (lo + hi) >>> 1;
+      SortTask<T> left = new SortTask<>(runs, lo, mid, comp);
+      left.fork();
+      new SortTask<>(runs, mid, hi, comp).compute();
+      left.join();
+
+      Run<T> a = runs[lo], b = runs[mid];
+      int len = a.len + b.len;
+      mergeNodes(a.head, a.tail, b.head, b.tail, comp, a);
+      a.len = len;
+    }
+  }
+
+  /**
+   * Sorts the list on a ForkJoinPool with the given parallelism. The list is
+   * cut into chunks in a single pass, the chunks are sorted concurrently (with
+   * the adaptive sort, so existing order still pays off) and then merged
+   * pairwise up a fork/join tree. Stable, like {@link #sort}.
+   */
+  public static <T> void parallelSort(DoublyLinkedList<T> list, Comparator<T> comp, int parallelism) {
+    if (list == null || list.head == null || list.head.next == null) {
+      return;
+    }
+
+    int n = list.size();
+    int chunks = Math.min(parallelism * 4, n / MIN_PARALLEL_RUN);
+    if (parallelism <= 1 || chunks < 2) {
+      adaptiveSort(list, comp);
+      return;
+    }
+
+    Run<T>[] runs = newRuns(chunks);
+    DoublyLinkedList.Node<T> current = list.head;
+    for (int i = 0; i < chunks; i++) {
+      int len = n / chunks + (i < n % chunks ? 1 : 0);
+      Run<T> r = new Run<>();
+      r.head = current;
+      r.len = len;
+      DoublyLinkedList.Node<T> last = advance(current, len);
+      current = last.next;
+      last.next = null;
+      if (current != null)
+        current.prev = null;
+      runs[i] = r;
+    }
 
-      list.head = newHead;
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      pool.invoke(new SortTask<>(runs, 0, chunks, comp));
+    } finally {
+      pool.shutdown();
+    }
+
+    list.head = runs[0].head;
+    list.tail = runs[0].tail;
+  }
+
+  // ===== Array-backed lists =====
+
+  @SuppressWarnings("unchecked")
+  private static <T> void mergeRuns(Object[] src, Object[] dst, int lo, int mid, int hi, Comparator<T> comp) {
+    int i = lo, j = mid, k = lo;
+    while (i < mid && j < hi)
+      dst[k++] = (comp.compare((T) src[i], (T) src[j]) <= 0) ? src[i++] : src[j++];
+    while (i < mid)
+      dst[k++] = src[i++];
+    while (j < hi)
+      dst[k++] = src[j++];
+  }
+
+  // Stable bottom-up merge sort that ping-pongs between the list's array and
+  // one scratch buffer of the same length
+  public static <T> void sort(ArrayList<T> list, Comparator<T> comp) {
+    if (list == null || list.size < 2)
+      return;
+
+    int n = list.size;
+    Object[] src = list.data;
+    Object[] dst = new Object[n];
+
+    for (int width = 1; width < n; width *= 2) {
+      for (int lo = 0; lo < n; lo += 2 * width) {
+        int mid = Math.min(lo + width, n);
+        int hi = Math.min(lo + 2 * width, n);
+        mergeRuns(src, dst, lo, mid, hi, comp);
+      }
+      Object[] tmp = src;
+      src = dst;
+      dst = tmp;
     }
 
-    list.rebuildTailAndSize();
+    if (src != list.data)
+      System.arraycopy(src, 0, list.data, 0, n);
   }
 }
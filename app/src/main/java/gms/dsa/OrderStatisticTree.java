@@ -0,0 +1,245 @@
+package gms.dsa;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * AVL tree augmented with subtree sizes.
+ * Besides O(log n) add/remove it answers "how many elements sort before x"
+ * ({@link #rank}) and "which element is i-th" ({@link #select}) in O(log n),
+ * and visits any index range in O(log n + k). Elements that compare equal
+ * are treated as the same element.
+ */
+public class OrderStatisticTree<T> {
+  private static final class Node<T> {
+    T val;
+    Node<T> left, right;
+    int height = 1;
+    int size = 1;
+
+    Node(T val) {
+      this.val = val;
+    }
+  }
+
+  private final Comparator<? super T> comp;
+  private Node<T> root;
+
+  public OrderStatisticTree(Comparator<? super T> comp) {
+    this.comp = comp;
+  }
+
+  public int size() {
+    return size(root);
+  }
+
+  public boolean isEmpty() {
+    return root == null;
+  }
+
+  public void clear() {
+    root = null;
+  }
+
+  /**
+   * Replaces the contents with `sorted`, which must be in ascending order
+   * without equal elements. Builds a perfectly balanced tree in O(n) instead
+   * of n O(log n) inserts, e.g. when loading a saved ranking.
+   */
+  public void buildFrom(List<? extends T> sorted) {
+    Object[] vals = sorted.toArray();
+    root = build(vals, 0, vals.length);
+  }
+
+  public boolean contains(T v) {
+    Node<T> cur = root;
+    while (cur != null) {
+      int c = comp.compare(v, cur.val);
+      if (c == 0)
+        return true;
+      cur = c < 0 ? cur.left : cur.right;
+    }
+    return false;
+  }
+
+  // Returns false if an equal element is already present
+  public boolean add(T v) {
+    int before = size();
+    root = add(root, v);
+    return size() != before;
+  }
+
+  // Returns false if no equal element was present
+  public boolean remove(T v) {
+    int before = size();
+    root = remove(root, v);
+    return size() != before;
+  }
+
+  // Number of elements strictly before v (its 0-based index if present)
+  public int rank(T v) {
+    int r = 0;
+    Node<T> cur = root;
+    while (cur != null) {
+      int c = comp.compare(v, cur.val);
+      if (c <= 0) {
+        cur = cur.left;
+      } else {
+        r += size(cur.left) + 1;
+        cur = cur.right;
+      }
+    }
+    return r;
+  }
+
+  // Element at 0-based index i
+  public T select(int i) {
+    if (i < 0 || i >= size())
+      throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size());
+    Node<T> cur = root;
+    while (true) {
+      int ls = size(cur.left);
+      if (i < ls) {
+        cur = cur.left;
+      } else if (i == ls) {
+        return cur.val;
+      } else {
+        i -= ls + 1;
+        cur = cur.right;
+      }
+    }
+  }
+
+  // Visits elements with 0-based index in [from, to) in order
+  public void forEachInRange(int from, int to, Consumer<? super T> action) {
+    from = Math.max(from, 0);
+    to = Math.min(to, size());
+    if (from < to)
+      visit(root, 0, from, to, action);
+  }
+
+  public void forEach(Consumer<? super T> action) {
+    forEachInRange(0, size(), action);
+  }
+
+  // ===== AVL Helpers =====
+
+  private static <T> void visit(Node<T> n, int offset, int from, int to, Consumer<? super T> action) {
+    while (n != null) {
+      int idx = offset + size(n.left);
+      if (from < idx)
+        visit(n.left, offset, from, to, action);
+      if (idx >= to)
+        return;
+      if (idx >= from)
+        action.accept(n.val);
+      offset = idx + 1;
+      n = n.right;
+    }
+  }
+
+  private static int size(Node<?> n) {
+    return n == null ? 0 : n.size;
+  }
+
+  private static int height(Node<?> n) {
+    return n == null ? 0 : n.height;
+  }
+
+  private static void update(Node<?> n) {
+    n.height = 1 + Math.max(height(n.left), height(n.right));
+    n.size = 1 + size(n.left) + size(n.right);
+  }
+
+  private static <T> Node<T> rotateRight(Node<T> n) {
+    Node<T> l = n.left;
+    n.left = l.right;
+    l.right = n;
+    update(n);
+    update(l);
+    return l;
+  }
+
+  private static <T> Node<T> rotateLeft(Node<T> n) {
+    Node<T> r = n.right;
+    n.right = r.left;
+    r.left = n;
+    update(n);
+    update(r);
+    return r;
+  }
+
+  private static <T> Node<T> balance(Node<T> n) {
+    update(n);
+    int bf = height(n.left) - height(n.right);
+    if (bf > 1) {
+      if (height(n.left.left) < height(n.left.right))
+        n.left = rotateLeft(n.left);
+      return rotateRight(n);
+    }
+    if (bf < -1) {
+      if (height(n.right.right) < height(n.right.left))
+        n.right = rotateRight(n.right);
+      return rotateLeft(n);
+    }
+    return n;
+  }
+
+  // Balanced subtree over vals[lo, hi)
+  @SuppressWarnings("unchecked")
+  private static <T> Node<T> build(Object[] vals, int lo, int hi) {
+    if (lo >= hi)
+      return null;
+    int mid = (lo + hi) >>> 1;
+    Node<T> n = new Node<>((T) vals[mid]);
+    n.left = build(vals, lo, mid);
+    n.right = build(vals, mid + 1, hi);
+    update(n);
+    return n;
+  }
+
+  private Node<T> add(Node<T> n, T v) {
+    if (n == null)
+      return new Node<>(v);
+    int c = comp.compare(v, n.val);
+    if (c == 0)
+      return n;
+    if (c < 0)
+      n.left = add(n.left, v);
+    else
+      n.right = add(n.right, v);
+    return balance(n);
+  }
+
+  // Unlinks the leftmost node of the subtree
+  private Node<T> removeMin(Node<T> n) {
+    if (n.left == null)
+      return n.right;
+    n.left = removeMin(n.left);
+    return balance(n);
+  }
+
+  private Node<T> remove(Node<T> n, T v) {
+    if (n == null)
+      return null;
+    int c = comp.compare(v, n.val);
+    if (c < 0) {
+      n.left = remove(n.left, v);
+    } else if (c > 0) {
+      n.right = remove(n.right, v);
+    } else {
+      if (n.left == null)
+        return n.right;
+      if (n.right == null)
+        return n.left;
+      Node<T> s = n.right;
+      while (s.left != null)
+        s = s.left;
+      s.right = removeMin(n.right);
+      s.left = n.left;
+      return balance(s);
+    }
+    return balance(n);
+  }
+}
@@ -0,0 +1,57 @@
+package gms.dsa;
+
+import java.util.Arrays;
+
+/**
+ * Interns strings to dense int ids (0, 1, 2, ...) and back.
+ * Every occurrence of a name shares one String instance and one id, so
+ * repeated names cost 4 bytes instead of a String each, and id -> name is an
+ * array index. intern() is synchronized; lookups never lock.
+ */
+public class SymbolTable {
+  private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+  private volatile String[] names = new String[16];
+  private volatile int size;
+
+  public int size() {
+    return size;
+  }
+
+  // Id of `name`, assigning the next free id on first sight
+  public int intern(String name) {
+    Integer id = ids.get(name);
+    if (id != null)
+      return id;
+    synchronized (this) {
+      id = ids.get(name);
+      if (id != null)
+        return id;
+      int next = size;
+      String[] arr = names;
+      if (next == arr.length)
+        arr = Arrays.copyOf(arr, next * 2);
+      arr[next] = name;
+      names = arr;
+      size = next + 1;
+      ids.put(name, next);
+      return next;
+    }
+  }
+
+  // Id of `name`, or -1 if it was never interned
+  public int id(String name) {
+    Integer id = ids.get(name);
+    return id == null ? -1 : id;
+  }
+
+  public String name(int id) {
+    if (id < 0 || id >= size)
+      throw new IndexOutOfBoundsException("Id: " + id + ", Size: " + size);
+    return names[id];
+  }
+
+  // The shared instance equal to `name`
+  public String canonical(String name) {
+    return name(intern(name));
+  }
+}
@@ -0,0 +1,189 @@
+package gms.dsa;
+
+import java.util.function.BiConsumer;
+
+/**
+ * AVL tree holding the HashMap entries whose probe distance grew past the
+ * treeify threshold. Entries are ordered by hash first and then by
+ * {@link Comparable#compareTo}, so even keys crafted to share one hashCode
+ * cost O(log n) to find.
+ */
+final class TreeBin {
+  static final class Node {
+    final Object key;
+    final int hash;
+    Object val;
+    Node left, right;
+    int height = 1;
+
+    Node(Object key, Object val, int hash) {
+      this.key = key;
+      this.val = val;
+      this.hash = hash;
+    }
+  }
+
+  private Node root;
+  private int size;
+
+  static boolean accepts(Object key) {
+    return key instanceof Comparable;
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static int compare(Object a, int ha, Object b, int hb) {
+    if (ha != hb)
+      return ha < hb ? -1 : 1;
+    if (a.getClass() != b.getClass())
+      return a.getClass().getName().compareTo(b.getClass().getName());
+    return ((Comparable) a).compareTo(b);
+  }
+
+  int size() {
+    return size;
+  }
+
+  Node find(Object key, int hash) {
+    if (root == null || !accepts(key))
+      return null;
+    Node cur = root;
+    while (cur != null) {
+      int c = compare(key, hash, cur.key, cur.hash);
+      if (c == 0)
+        return cur;
+      cur = c < 0 ? cur.left : cur.right;
+    }
+    return null;
+  }
+
+  // Smallest node strictly after (key, hash), or the first node when key is null
+  Node higher(Object key, int hash) {
+    Node cur = root, best = null;
+    while (cur != null) {
+      if (key == null || compare(key, hash, cur.key, cur.hash) < 0) {
+        best = cur;
+        cur = cur.left;
+      } else {
+        cur = cur.right;
+      }
+    }
+    return best;
+  }
+
+  // Caller guarantees the key is not present yet
+  void insert(Object key, Object val, int hash) {
+    root = insert(root, key, val, hash);
+    size++;
+  }
+
+  boolean remove(Object key, int hash) {
+    if (find(key, hash) == null)
+      return false;
+    root = remove(root, key, hash);
+    size--;
+    return true;
+  }
+
+  void clear() {
+    root = null;
+    size = 0;
+  }
+
+  void forEach(BiConsumer<Object, Object> action) {
+    forEach(root, action);
+  }
+
+  // ===== AVL Helpers =====
+
+  private static void forEach(Node n, BiConsumer<Object, Object> action) {
+    while (n != null) {
+      forEach(n.left, action);
+      action.accept(n.key, n.val);
+      n = n.right;
+    }
+  }
+
+  private static int height(Node n) {
+    return n == null ? 0 : n.height;
+  }
+
+  private static void update(Node n) {
+    n.height = 1 + Math.max(height(n.left), height(n.right));
+  }
+
+  private static Node rotateRight(Node n) {
+    Node l = n.left;
+    n.left = l.right;
+    l.right = n;
+    update(n);
+    update(l);
+    return l;
+  }
+
+  private static Node rotateLeft(Node n) {
+    Node r = n.right;
+    n.right = r.left;
+    r.left = n;
+    update(n);
+    update(r);
+    return r;
+  }
+
+  private static Node balance(Node n) {
+    update(n);
+    int bf = height(n.left) - height(n.right);
+    if (bf > 1) {
+      if (height(n.left.left) < height(n.left.right))
+        n.left = rotateLeft(n.left);
+      return rotateRight(n);
+    }
+    if (bf < -1) {
+      if (height(n.right.right) < height(n.right.left))
+        n.right = rotateRight(n.right);
+      return rotateLeft(n);
+    }
+    return n;
+  }
+
+  private static Node insert(Node n, Object key, Object val, int hash) {
+    if (n == null)
+      return new Node(key, val, hash);
+    if (compare(key, hash, n.key, n.hash) < 0)
+      n.left = insert(n.left, key, val, hash);
+    else
+      n.right = insert(n.right, key, val, hash);
+    return balance(n);
+  }
+
+  private static Node removeMin(Node n, Node[] min) {
+    if (n.left == null) {
+      min[0] = n;
+      return n.right;
+    }
+    n.left = removeMin(n.left, min);
+    return balance(n);
+  }
+
+  private static Node remove(Node n, Object key, int hash) {
+    int c = compare(key, hash, n.key, n.hash);
+    if (c < 0) {
+      n.left = remove(n.left, key, hash);
+    } else if (c > 0) {
+      n.right = remove(n.right, key, hash);
+    } else {
+      if (n.left == null)
+        return n.right;
+      if (n.right == null)
+        return n.left;
+      // Relink the successor node in place of n (nodes are never copied, so
+      // references held by iterators stay meaningful)
+      Node[] min = new Node[1];
+      Node right = removeMin(n.right, min);
+      Node s = min[0];
+      s.left = n.left;
+      s.right = right;
+      return balance(s);
+    }
+    return balance(n);
+  }
+}
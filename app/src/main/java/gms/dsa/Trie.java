@@ -0,0 +1,247 @@
+package gms.dsa;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Radix (path-compressed) trie from string keys to values. A key may hold
+ * several values, e.g. two students with the same name.
+ * Every edge carries a whole substring, so a node exists only where keys
+ * branch or end. Each node keeps its children sorted by first character in a
+ * char[] (binary searched), instead of a 26-slot array or a map per node.
+ * Lookups and prefix descents cost O(length of the key); a prefix query then
+ * visits matches in lexicographic key order and can stop at any point.
+ */
+public class Trie<V> {
+  private static final char[] NO_CHARS = {};
+  private static final Object[] NO_VALUES = {};
+  // Value lists longer than this also get a hash set for duplicate checks
+  private static final int SCAN_LIMIT = 8;
+
+  private static final class Node {
+    String edge;
+    char[] firsts = NO_CHARS;
+    Node[] kids = new Node[0];
+    // Values stored under this node's key: vals[0..nvals), insertion order
+    Object[] vals = NO_VALUES;
+    int nvals;
+    // Non-null once nvals > SCAN_LIMIT (many students sharing a name)
+    HashMap<Object, Boolean> valSet;
+
+    Node(String edge) {
+      this.edge = edge;
+    }
+
+    boolean addVal(Object value) {
+      if (valSet != null) {
+        if (valSet.containsKey(value))
+          return false;
+      } else {
+        for (int j = 0; j < nvals; j++) {
+          if (vals[j].equals(value))
+            return false;
+        }
+      }
+      if (nvals == vals.length)
+        vals = Arrays.copyOf(vals, Math.max(2, nvals * 2));
+      vals[nvals++] = value;
+      if (valSet != null) {
+        valSet.put(value, Boolean.TRUE);
+      } else if (nvals > SCAN_LIMIT) {
+        valSet = new HashMap<>(nvals * 2);
+        for (int j = 0; j < nvals; j++)
+          valSet.put(vals[j], Boolean.TRUE);
+      }
+      return true;
+    }
+
+    boolean removeVal(Object value) {
+      if (valSet != null && valSet.remove(value) == null)
+        return false;
+      for (int j = 0; j < nvals; j++) {
+        if (vals[j].equals(value)) {
+          System.arraycopy(vals, j + 1, vals, j, nvals - j - 1);
+          vals[--nvals] = null;
+          if (nvals == 0) {
+            vals = NO_VALUES;
+            valSet = null;
+          }
+          return true;
+        }
+      }
+      return false;
+    }
+
+    int find(char c) {
+      return Arrays.binarySearch(firsts, c);
+    }
+
+    void insertKid(int at, Node kid) {
+      int n = firsts.length;
+      char[] f = new char[n + 1];
+      Node[] k = new Node[n + 1];
+      System.arraycopy(firsts, 0, f, 0, at);
+      System.arraycopy(kids, 0, k, 0, at);
+      f[at] = kid.edge.charAt(0);
+      k[at] = kid;
+      System.arraycopy(firsts, at, f, at + 1, n - at);
+      System.arraycopy(kids, at, k, at + 1, n - at);
+      firsts = f;
+      kids = k;
+    }
+
+    void removeKid(int at) {
+      int n = firsts.length;
+      char[] f = new char[n - 1];
+      Node[] k = new Node[n - 1];
+      System.arraycopy(firsts, 0, f, 0, at);
+      System.arraycopy(kids, 0, k, 0, at);
+      System.arraycopy(firsts, at + 1, f, at, n - at - 1);
+      System.arraycopy(kids, at + 1, k, at, n - at - 1);
+      firsts = f;
+      kids = k;
+    }
+  }
+
+  private final Node root = new Node("");
+  private int size;
+
+  // Number of (key, value) pairs
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    root.firsts = NO_CHARS;
+    root.kids = new Node[0];
+    root.vals = NO_VALUES;
+    root.nvals = 0;
+    root.valSet = null;
+    size = 0;
+  }
+
+  // Returns false if the value was already stored under this key
+  public boolean put(String key, V value) {
+    Node node = root;
+    int i = 0;
+    while (i < key.length()) {
+      int idx = node.find(key.charAt(i));
+      if (idx < 0) {
+        Node leaf = new Node(key.substring(i));
+        node.insertKid(-idx - 1, leaf);
+        node = leaf;
+        break;
+      }
+      Node child = node.kids[idx];
+      int common = commonPrefix(child.edge, key, i);
+      if (common < child.edge.length()) {
+        // Split the edge where the keys diverge
+        Node mid = new Node(child.edge.substring(0, common));
+        child.edge = child.edge.substring(common);
+        mid.firsts = new char[] { child.edge.charAt(0) };
+        mid.kids = new Node[] { child };
+        node.kids[idx] = mid;
+        child = mid;
+      }
+      node = child;
+      i += common;
+    }
+
+    if (!node.addVal(value))
+      return false;
+    size++;
+    return true;
+  }
+
+  // Returns false if the value was not stored under this key
+  public boolean remove(String key, V value) {
+    if (!remove(root, key, 0, value))
+      return false;
+    size--;
+    return true;
+  }
+
+  // Visits values whose key starts with `prefix`, in key order, until the
+  // visitor returns false
+  @SuppressWarnings("unchecked")
+  public void forEachWithPrefix(String prefix, Predicate<? super V> visitor) {
+    Node node = root;
+    int i = 0;
+    while (i < prefix.length()) {
+      int idx = node.find(prefix.charAt(i));
+      if (idx < 0)
+        return;
+      Node child = node.kids[idx];
+      int common = commonPrefix(child.edge, prefix, i);
+      if (i + common < prefix.length() && common < child.edge.length())
+        return;
+      node = child;
+      i += common;
+    }
+    visit(node, (Predicate<Object>) visitor);
+  }
+
+  // Up to `limit` values whose key starts with `prefix`, in key order
+  public List<V> withPrefix(String prefix, int limit) {
+    ArrayList<V> out = new ArrayList<>();
+    if (limit > 0) {
+      forEachWithPrefix(prefix, v -> {
+        out.add(v);
+        return out.size() < limit;
+      });
+    }
+    return out;
+  }
+
+  // ===== Helpers =====
+
+  private static int commonPrefix(String edge, String key, int from) {
+    int n = Math.min(edge.length(), key.length() - from);
+    int i = 0;
+    while (i < n && edge.charAt(i) == key.charAt(from + i))
+      i++;
+    return i;
+  }
+
+  // Returns false once the visitor asks to stop
+  private static boolean visit(Node node, Predicate<Object> visitor) {
+    for (int j = 0; j < node.nvals; j++) {
+      if (!visitor.test(node.vals[j]))
+        return false;
+    }
+    for (Node kid : node.kids) {
+      if (!visit(kid, visitor))
+        return false;
+    }
+    return true;
+  }
+
+  private static boolean remove(Node node, String key, int i, Object value) {
+    if (i == key.length())
+      return node.removeVal(value);
+
+    int idx = node.find(key.charAt(i));
+    if (idx < 0)
+      return false;
+    Node child = node.kids[idx];
+    if (!key.startsWith(child.edge, i) || !remove(child, key, i + child.edge.length(), value))
+      return false;
+
+    // Keep the trie compressed: drop empty leaves, fold single-child chains
+    if (child.nvals == 0) {
+      if (child.kids.length == 0) {
+        node.removeKid(idx);
+      } else if (child.kids.length == 1) {
+        Node grand = child.kids[0];
+        grand.edge = child.edge + grand.edge;
+        node.kids[idx] = grand;
+      }
+    }
+    return true;
+  }
+}
@@ -1,6 +1,12 @@
 package gms.io;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.List;
 
 import gms.dsa.DoublyLinkedList;
@@ -21,7 +27,7 @@ public class CSV {
 
     public void row(Object... cols) {
       for (int i = 0; i < cols.length; i++) {
-        out.print(cols[i]);
+        out.print(quote(String.valueOf(cols[i])));
         if (i + 1 < cols.length)
           out.print(SEP);
       }
@@ -35,25 +41,35 @@ public class CSV {
     public boolean ok() {
       return !out.checkError();
     }
+
+    // Quotes a value holding a separator, quote or line break, or with
+    // whitespace a reader would trim ("" escapes a quote)
+    private static String quote(String v) {
+      if (!v.isEmpty() && (v.charAt(0) <= ' ' || v.charAt(v.length() - 1) <= ' '))
+        return '"' + v.replace("\"", "\"\"") + '"';
+      for (int i = 0; i < v.length(); i++) {
+        char c = v.charAt(i);
+        if (c == ',' || c == '"' || c == '\n' || c == '\r')
+          return '"' + v.replace("\"", "\"\"") + '"';
+      }
+      return v;
+    }
   }
 
+  // Row-at-a-time reader returning the columns as Strings (see Cursor)
   public static class Reader implements Closeable {
-    private final BufferedReader in;
+    private final Cursor in;
 
     public Reader(String path) throws IOException {
-      this.in = new BufferedReader(new FileReader(path));
+      this.in = new Cursor(path);
     }
 
     public List<String> readRow() throws IOException {
-      String line = in.readLine();
-      if (line == null)
+      if (!in.next())
         return null;
-      if (line.isEmpty())
-        return new DoublyLinkedList<>();
       List<String> cols = new DoublyLinkedList<>();
-      String[] parts = line.split(",", -1);
-      for (String p : parts)
-        cols.add(p.trim());
+      for (int i = 0; i < in.columns(); i++)
+        cols.add(in.field(i).toString());
       return cols;
     }
 
@@ -61,4 +77,325 @@ public class CSV {
       in.close();
     }
   }
+
+  /**
+   * Streaming reader that allocates nothing per row: the file is read into
+   * one reusable byte buffer and each column is a {@link Field} slice of it,
+   * parsed in place. Unquoted fields are trimmed like String.trim(); a quoted
+   * field ("...", with "" for a quote) is taken verbatim and may hold commas
+   * and line breaks. Lines end with \n, \r\n or \r; an empty line has no
+   * columns. Fields are only valid until the next call to next().
+   */
+  public static final class Cursor implements Closeable {
+    private final FileChannel ch; // null when reading bytes already in memory
+    private byte[] buf;
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private Field[] fields = new Field[8];
+    private int columns;
+
+    public Cursor(String path) throws IOException {
+      this.ch = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+      this.buf = new byte[1 << 16];
+    }
+
+    // Reads the rows of b[from, to)
+    public Cursor(byte[] b, int from, int to) {
+      this.ch = null;
+      this.buf = b;
+      this.pos = from;
+      this.limit = to;
+      this.eof = true;
+    }
+
+    // Moves to the next row; false at the end of the input
+    public boolean next() throws IOException {
+      while (true) {
+        if (pos >= limit && eof)
+          return false;
+        int end = scanRow(pos);
+        if (end >= 0) {
+          pos = end;
+          return true;
+        }
+        fill();
+      }
+    }
+
+    public int columns() {
+      return columns;
+    }
+
+    // Column `i` of the current row (0-based)
+    public Field field(int i) {
+      if (i >= columns)
+        throw new IndexOutOfBoundsException("Column: " + i + ", Columns: " + columns);
+      return fields[i];
+    }
+
+    public void close() throws IOException {
+      if (ch != null)
+        ch.close();
+    }
+
+    /**
+     * Splits the row starting at `p` into fields; returns the start of the
+     * next row, or -1 if the row runs past the buffered bytes.
+     */
+    private int scanRow(int p) {
+      columns = 0;
+      if (eol(p))
+        return lineEnd(p);
+      while (true) {
+        Field f = nextField();
+        int q = p;
+        while (q < limit && blank(buf[q]) && buf[q] != '\n' && buf[q] != '\r')
+          q++;
+        if (q < limit && buf[q] == '"') {
+          int start = ++q;
+          boolean escaped = false;
+          while (true) {
+            if (q >= limit) {
+              if (!eof)
+                return -1;
+              break; // unterminated: take the rest
+            }
+            if (buf[q] == '"') {
+              if (q + 1 >= limit && !eof)
+                return -1;
+              if (q + 1 < limit && buf[q + 1] == '"') {
+                escaped = true;
+                q += 2;
+                continue;
+              }
+              break;
+            }
+            q++;
+          }
+          f.set(buf, start, Math.min(q, limit), escaped);
+          // Anything between the closing quote and the separator is ignored
+          while (q < limit && buf[q] != ',' && buf[q] != '\n' && buf[q] != '\r')
+            q++;
+        } else {
+          int start = q;
+          while (q < limit && buf[q] != ',' && buf[q] != '\n' && buf[q] != '\r')
+            q++;
+          int end = q;
+          while (end > start && blank(buf[end - 1]))
+            end--;
+          f.set(buf, start, end, false);
+        }
+        if (q >= limit)
+          return eof ? limit : -1;
+        if (buf[q] != ',')
+          return lineEnd(q);
+        p = q + 1;
+      }
+    }
+
+    // Whether a line break starts at `p`
+    private boolean eol(int p) {
+      return p < limit && (buf[p] == '\n' || buf[p] == '\r');
+    }
+
+    // Start of the next row after the line break at `p` (-1 if \r may be
+    // followed by an unread \n)
+    private int lineEnd(int p) {
+      if (buf[p] == '\r') {
+        if (p + 1 < limit)
+          return buf[p + 1] == '\n' ? p + 2 : p + 1;
+        return eof ? p + 1 : -1;
+      }
+      return p + 1;
+    }
+
+    private Field nextField() {
+      if (columns == fields.length)
+        fields = Arrays.copyOf(fields, columns * 2);
+      Field f = fields[columns];
+      if (f == null)
+        f = fields[columns] = new Field();
+      columns++;
+      return f;
+    }
+
+    // Keeps the unfinished row, growing the buffer if it fills it, and reads more
+    private void fill() throws IOException {
+      int keep = limit - pos;
+      if (pos > 0)
+        System.arraycopy(buf, pos, buf, 0, keep);
+      else if (keep == buf.length)
+        buf = Arrays.copyOf(buf, buf.length * 2);
+      pos = 0;
+      limit = keep;
+      int n = ch.read(ByteBuffer.wrap(buf, limit, buf.length - limit));
+      if (n < 0)
+        eof = true;
+      else
+        limit += n;
+    }
+  }
+
+  /**
+   * One column of the current Cursor row: a slice of its buffer, parsed in
+   * place. toString() is the only method that allocates.
+   */
+  public static final class Field {
+    private byte[] buf;
+    private int from;
+    private int to;
+    // Quoted with "" escapes inside, so the bytes are not the value
+    private boolean escaped;
+
+    void set(byte[] b, int from, int to, boolean escaped) {
+      this.buf = b;
+      this.from = from;
+      this.to = to;
+      this.escaped = escaped;
+    }
+
+    public int length() {
+      return to - from;
+    }
+
+    public boolean isEmpty() {
+      return to == from;
+    }
+
+    public int parseInt() {
+      return CSV.parseInt(buf, from, to);
+    }
+
+    public double parseDouble() {
+      return CSV.parseDouble(buf, from, to);
+    }
+
+    // Whether the field is `ascii`, ignoring ASCII case
+    public boolean equalsIgnoreCase(String ascii) {
+      if (escaped || ascii.length() != to - from)
+        return false;
+      for (int i = 0; i < ascii.length(); i++) {
+        int c = buf[from + i];
+        int a = ascii.charAt(i);
+        if (c != a && ((c | 0x20) != (a | 0x20) || (a | 0x20) < 'a' || (a | 0x20) > 'z'))
+          return false;
+      }
+      return true;
+    }
+
+    // Whether the field's value is `s`, decoding only non-ASCII text
+    public boolean contentEquals(String s) {
+      if (escaped)
+        return toString().equals(s);
+      int n = to - from;
+      for (int i = 0; i < n; i++) {
+        byte c = buf[from + i];
+        if (c < 0)
+          return toString().equals(s);
+        if (i >= s.length() || s.charAt(i) != c)
+          return false;
+      }
+      return n == s.length();
+    }
+
+    /**
+     * Steps `token` through the `sep`-separated pieces of this field, e.g.
+     * the marks of "80;75.5": call {@link #firstToken} once, then nextToken
+     * until it returns false.
+     */
+    public void firstToken(Field token) {
+      token.set(buf, from - 1, from - 1, false);
+    }
+
+    public boolean nextToken(char sep, Field token) {
+      int p = token.to + 1;
+      if (p > to)
+        return false;
+      int q = p;
+      while (q < to && buf[q] != sep)
+        q++;
+      token.set(buf, p, q, false);
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      String s = string(buf, from, to);
+      return escaped ? s.replace("\"\"", "\"") : s;
+    }
+  }
+
+  // ===== Parsing straight from bytes =====
+
+  // Powers of ten that are exact doubles
+  private static final double[] POW10 = new double[23];
+
+  static {
+    POW10[0] = 1;
+    for (int i = 1; i < POW10.length; i++)
+      POW10[i] = POW10[i - 1] * 10;
+  }
+
+  // Whether `b` is whitespace for String.trim()
+  static boolean blank(byte b) {
+    return (b & 0xff) <= ' ';
+  }
+
+  // UTF-8 text of b[from, to)
+  static String string(byte[] b, int from, int to) {
+    return new String(b, from, to - from, StandardCharsets.UTF_8);
+  }
+
+  // Integer.parseInt of b[from, to): plain digits directly, anything else via String
+  static int parseInt(byte[] b, int from, int to) {
+    int n = to - from;
+    if (n > 0 && n <= 9) {
+      int v = 0;
+      int i = from;
+      for (; i < to; i++) {
+        int d = b[i] - '0';
+        if (d < 0 || d > 9)
+          break;
+        v = v * 10 + d;
+      }
+      if (i == to)
+        return v;
+    }
+    return Integer.parseInt(string(b, from, to));
+  }
+
+  /**
+   * Double.parseDouble of b[from, to). A decimal with at most 15 digits and no
+   * exponent (how marks are written) is an exact integer over an exact power
+   * of ten, so one division gives the same correctly rounded double; anything
+   * else goes through Double.parseDouble.
+   */
+  static double parseDouble(byte[] b, int from, int to) {
+    int i = from;
+    boolean neg = false;
+    if (i < to && (b[i] == '-' || b[i] == '+'))
+      neg = b[i++] == '-';
+    long m = 0;
+    int digits = 0;
+    int frac = -1;
+    for (; i < to; i++) {
+      int c = b[i];
+      if (c == '.' && frac < 0) {
+        frac = 0;
+        continue;
+      }
+      int d = c - '0';
+      if (d < 0 || d > 9)
+        break;
+      m = m * 10 + d;
+      digits++;
+      if (frac >= 0)
+        frac++;
+    }
+    if (i != to || digits == 0 || digits > 15)
+      return Double.parseDouble(string(b, from, to));
+    double v = frac > 0 ? m / POW10[frac] : m;
+    return neg ? -v : v;
+  }
 }
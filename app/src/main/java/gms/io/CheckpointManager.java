@@ -0,0 +1,143 @@
+package gms.io;
+
+import gms.core.Institute;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Keeps journal replay, and so restart time, bounded: once the journal has
+ * grown past a size limit or the last checkpoint is older than a time limit,
+ * a full binary snapshot is taken and the journal segments it covers are
+ * deleted.
+ *
+ * The snapshot is encoded in memory on the calling thread, so it is a
+ * consistent image, and the journal moves on to a new segment; writing the
+ * file (tmp + fsync + rename) and deleting the old segments then happen on a
+ * background thread. Every step is crash-safe: until the rename, recovery
+ * uses the old snapshot and all segments; after it, the new snapshot and the
+ * records after its sequence number, whether or not the old segments were
+ * deleted yet.
+ *
+ * Checkpoints must be taken from the thread making the changes (or with
+ * changes paused): a mutation applied but not yet journaled while the image
+ * is encoded would be replayed on top of it. For the same reason there is no
+ * timer: the limits are only checked when maybeCheckpoint is called (after
+ * each save, and at startup), so an idle or unsaved session is never
+ * checkpointed and replay can exceed the limits by what one save committed.
+ */
+public final class CheckpointManager implements Closeable {
+  public static final long DEFAULT_MAX_JOURNAL_BYTES = 16L << 20;
+  public static final long DEFAULT_MAX_INTERVAL_MILLIS = 15 * 60 * 1000L;
+
+  private final Institute inst;
+  private final Journal journal;
+  private final Path snapshot;
+  private final long maxJournalBytes;
+  private final long maxIntervalMillis;
+
+  private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "checkpoint-writer");
+    t.setDaemon(true);
+    return t;
+  });
+  // Last checkpoint write, null before the first one
+  private Future<?> inFlight;
+  private long lastCheckpoint = System.currentTimeMillis();
+  private int written;
+
+  public CheckpointManager(Institute inst, String dir, Journal journal) {
+    this(inst, dir, journal, DEFAULT_MAX_JOURNAL_BYTES, DEFAULT_MAX_INTERVAL_MILLIS);
+  }
+
+  public CheckpointManager(Institute inst, String dir, Journal journal, long maxJournalBytes,
+      long maxIntervalMillis) {
+    this.inst = inst;
+    this.journal = journal;
+    this.snapshot = Paths.get(dir, PersistenceManager.SNAPSHOT);
+    this.maxJournalBytes = maxJournalBytes;
+    this.maxIntervalMillis = maxIntervalMillis;
+  }
+
+  // Whether the journal has outgrown the size limit or the time limit has passed
+  public synchronized boolean due() {
+    return journal.size() >= maxJournalBytes
+        || System.currentTimeMillis() - lastCheckpoint >= maxIntervalMillis;
+  }
+
+  /**
+   * Checkpoints if one is due and none is still being written. Meant to be
+   * called right after a commit, so the snapshot holds nothing unsaved.
+   */
+  public synchronized boolean maybeCheckpoint() {
+    return due() && checkpoint();
+  }
+
+  /**
+   * Captures the institute now and writes it in the background. Returns false
+   * (doing nothing) while the previous checkpoint is still being written.
+   */
+  public synchronized boolean checkpoint() {
+    if (inFlight != null && !inFlight.isDone())
+      return false;
+    long seq = journal.sequence();
+    ByteBuffer[] image = Snapshot.encode(inst, seq);
+    try {
+      journal.rotate();
+    } catch (IOException e) {
+      // The snapshot is still valid; the old segment is just kept until the next one
+      System.err.println("Checkpoint: journal rotation failed: " + e.getMessage());
+    }
+    lastCheckpoint = System.currentTimeMillis();
+    inFlight = writer.submit(() -> {
+      try {
+        Files.createDirectories(snapshot.toAbsolutePath().getParent());
+        Snapshot.writeTo(image, snapshot);
+        journal.dropBefore(seq);
+        synchronized (this) {
+          written++;
+        }
+      } catch (IOException e) {
+        System.err.println("Checkpoint failed: " + e.getMessage());
+      }
+    });
+    return true;
+  }
+
+  // Number of checkpoints written so far
+  public synchronized int checkpoints() {
+    return written;
+  }
+
+  // Waits for the checkpoint being written, if any
+  public void awaitIdle() {
+    Future<?> f;
+    synchronized (this) {
+      f = inFlight;
+    }
+    if (f == null)
+      return;
+    try {
+      f.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      System.err.println("Checkpoint failed: " + e.getCause());
+    }
+  }
+
+  // Finishes the checkpoint being written and stops the writer thread
+  @Override
+  public void close() {
+    awaitIdle();
+    writer.shutdown();
+  }
+}
@@ -0,0 +1,611 @@
+package gms.io;
+
+import gms.core.ChangeListener;
+import gms.core.Exam;
+import gms.core.Institute;
+import gms.core.PromotionEngine;
+import gms.core.Student;
+import gms.core.Subject;
+
+import gms.dsa.ArrayList;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of every mutation of an institute, so saving
+ * costs O(changes) instead of rewriting the whole dataset.
+ *
+ * Records are numbered in order (their sequence number) and stored in segment
+ * files named after the number of their first record:
+ *
+ * <pre>
+ * journal-&lt;firstSeq&gt;.gms:
+ * "GMSJ" int version, long firstSeq
+ * { int len, byte type, payload (len - 1 bytes), int CRC32(type + payload) }*
+ * </pre>
+ *
+ * Records are encoded into memory as they happen and only reach the disk on
+ * {@link #commit}, which writes everything appended so far with one fsync.
+ * Threads committing at the same time share that fsync (group commit): one
+ * writes the batch while the others wait and find their records already
+ * durable. On open the segments are replayed on top of the last checkpoint,
+ * skipping the records it already holds; a torn or corrupt tail (a crash
+ * mid-write) is cut off there.
+ * A checkpoint never rewrites the log: {@link #rotate} starts a new segment
+ * and {@link #dropBefore} later deletes the segments the checkpoint covers.
+ */
+public final class Journal implements ChangeListener, Closeable {
+  static final int MAGIC = 0x474D534A; // "GMSJ"
+  static final int VERSION = 2;
+  private static final int HEADER = 16;
+  private static final String PREFIX = "journal-";
+  private static final String SUFFIX = ".gms";
+  private static final Exam[] EXAMS = Exam.values();
+
+  // Record types
+  private static final int STUDENT_ADDED = 1;
+  private static final int STUDENT_REMOVED = 2;
+  private static final int SUBJECT_ADDED = 3;
+  private static final int SUBJECT_REMOVED = 4;
+  private static final int MARK_PUSHED = 5;
+  private static final int MARKS_PUSHED = 6;
+  private static final int MARK_ROLLED_BACK = 7;
+  private static final int SGPA_SET = 8;
+  private static final int SGPA_CALCULATED = 9;
+  private static final int CGPA_SET = 10;
+  private static final int SEMESTER_PROMOTED = 11;
+  private static final int ALL_PROMOTED = 12;
+  private static final int EXAM_FLOW = 13;
+
+  private final Path dir;
+  private final Institute inst;
+  private final int replayed;
+
+  // Encoded records not yet written, guarded by `this`. `appended` is the
+  // sequence number of the next record.
+  private Snapshot.Out pending = new Snapshot.Out();
+  private int recordStart;
+  private long appended;
+  private final CRC32 crc = new CRC32();
+
+  // Write side, guarded by flushLock. `durable` is the sequence number of
+  // the first record not yet on disk.
+  private final Object flushLock = new Object();
+  private Snapshot.Out spare = new Snapshot.Out();
+  private volatile long durable;
+  private IOException failed;
+  private FileChannel ch;
+  private long segmentSeq;
+  private volatile long written;
+  // Earlier segments still on disk, oldest first: { firstSeq, bytes }
+  private final ArrayList<long[]> older = new ArrayList<>();
+  private volatile long olderBytes;
+
+  private Journal(Path dir, Institute inst, int replayed, long seq) {
+    this.dir = dir;
+    this.inst = inst;
+    this.replayed = replayed;
+    this.appended = seq;
+    this.durable = seq;
+  }
+
+  /**
+   * Opens (or creates) the journal segments in `dir`, replays the records
+   * from sequence number `fromSeq` on into `inst` and attaches the journal as
+   * the institute's change listener. `inst` must hold the checkpoint that
+   * covers every record before `fromSeq` (0 if it covers none). Only a torn
+   * or corrupt tail is cut off; a record that passes its checksum but cannot
+   * be applied fails the open and leaves its segment as it is.
+   */
+  public static Journal open(Path dir, Institute inst, long fromSeq) throws IOException {
+    Files.createDirectories(dir);
+    ArrayList<long[]> segments = new ArrayList<>();
+    int replayed = 0;
+    long seq = -1;
+    boolean cut = false;
+    for (long first : list(dir)) {
+      Path file = segmentPath(dir, first);
+      if (!cut && seq >= 0 && first != seq) {
+        System.err.println("Journal: " + file.getFileName() + " does not follow on; the log ends before it");
+        cut = true;
+      }
+      if (cut) {
+        Files.delete(file);
+        continue;
+      }
+      if (Files.size(file) < HEADER) {
+        // Crashed while creating the segment: it never held a record
+        System.err.println("Journal: dropped incomplete segment " + file.getFileName());
+        Files.delete(file);
+        cut = true;
+        continue;
+      }
+      try (FileChannel sc = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        long size = sc.size();
+        long[] end = { HEADER, 0 };
+        replayed += replay(sc, inst, first, fromSeq, end);
+        if (end[0] < size) {
+          System.err.println("Journal: dropped " + (size - end[0]) + " bytes of torn or corrupt records");
+          sc.truncate(end[0]);
+          sc.force(true);
+          cut = true;
+        }
+        segments.add(new long[] { first, end[0] });
+        seq = first + end[1];
+      }
+    }
+
+    if (seq < fromSeq) {
+      // Everything on disk is already in the checkpoint
+      for (long[] seg : segments)
+        Files.delete(segmentPath(dir, seg[0]));
+      segments.clear();
+      seq = fromSeq;
+    }
+
+    Journal j = new Journal(dir, inst, replayed, seq);
+    long[] last = segments.isEmpty() ? null : segments.remove(segments.size() - 1);
+    if (last != null) {
+      j.ch = FileChannel.open(segmentPath(dir, last[0]), StandardOpenOption.WRITE);
+      j.ch.position(last[1]);
+      j.segmentSeq = last[0];
+      j.written = last[1];
+    } else {
+      j.ch = create(dir, seq);
+      j.segmentSeq = seq;
+      j.written = HEADER;
+    }
+    for (long[] seg : segments) {
+      j.older.add(seg);
+      j.olderBytes += seg[1];
+    }
+    // A crash between writing a checkpoint and dropping its segments leaves them behind
+    j.dropBefore(fromSeq);
+    inst.setChangeListener(j);
+    return j;
+  }
+
+  // Number of records replayed by open
+  public int replayed() {
+    return replayed;
+  }
+
+  // Sequence number the next record will get
+  public synchronized long sequence() {
+    return appended;
+  }
+
+  // Bytes in all segments, including records not yet committed
+  public synchronized long size() {
+    return olderBytes + written + pending.buf.position();
+  }
+
+  /**
+   * Makes every record appended so far durable: one write and one fsync for
+   * all of them, shared with any thread committing concurrently.
+   */
+  public void commit() throws IOException {
+    long target;
+    synchronized (this) {
+      target = appended;
+    }
+    if (durable >= target)
+      return;
+    synchronized (flushLock) {
+      if (failed != null)
+        throw new IOException("Journal unusable after an earlier write failure", failed);
+      // Another thread's fsync may already have covered our records
+      if (durable >= target)
+        return;
+      Snapshot.Out batch;
+      long upTo;
+      synchronized (this) {
+        batch = pending;
+        pending = spare;
+        upTo = appended;
+      }
+      ByteBuffer buf = batch.buf.flip();
+      int n = buf.remaining();
+      try {
+        while (buf.hasRemaining())
+          ch.write(buf);
+        ch.force(false);
+      } catch (IOException e) {
+        // The lost batch would leave a gap in the log, so stop accepting commits
+        failed = e;
+        throw e;
+      }
+      buf.clear();
+      spare = batch;
+      written += n;
+      durable = upTo;
+    }
+  }
+
+  /**
+   * Ends the current segment: records not yet committed, and all later ones,
+   * go to a new segment. Returns the sequence number it starts at. Nothing is
+   * committed, and a segment still without records is kept as it is.
+   */
+  public long rotate() throws IOException {
+    synchronized (flushLock) {
+      if (written == HEADER)
+        return segmentSeq;
+      long first = durable;
+      FileChannel next = create(dir, first);
+      ch.close();
+      older.add(new long[] { segmentSeq, written });
+      olderBytes += written;
+      ch = next;
+      segmentSeq = first;
+      written = HEADER;
+      return first;
+    }
+  }
+
+  /**
+   * Deletes the earlier segments that hold only records before `seq`, once a
+   * checkpoint covering them is durable. Returns the bytes freed.
+   */
+  public long dropBefore(long seq) throws IOException {
+    synchronized (flushLock) {
+      long freed = 0;
+      while (!older.isEmpty()) {
+        long end = older.size() > 1 ? older.get(1)[0] : segmentSeq;
+        if (end > seq)
+          break;
+        long[] seg = older.remove(0);
+        Files.deleteIfExists(segmentPath(dir, seg[0]));
+        olderBytes -= seg[1];
+        freed += seg[1];
+      }
+      if (freed > 0)
+        Snapshot.syncDir(dir);
+      return freed;
+    }
+  }
+
+  /**
+   * Drops every record, committed or not, and deletes every segment, e.g.
+   * once no checkpoint is left that they could apply to.
+   */
+  public void reset() throws IOException {
+    synchronized (flushLock) {
+      long first;
+      synchronized (this) {
+        pending.buf.clear();
+        durable = appended;
+        first = appended;
+      }
+      ch.close();
+      for (long[] seg : older)
+        Files.deleteIfExists(segmentPath(dir, seg[0]));
+      Files.deleteIfExists(segmentPath(dir, segmentSeq));
+      older.clear();
+      olderBytes = 0;
+      ch = create(dir, first);
+      segmentSeq = first;
+      written = HEADER;
+      failed = null;
+    }
+  }
+
+  /**
+   * Appends records that rebuild the whole institute from nothing (exam flow
+   * and every student), e.g. after reset when no checkpoint is left.
+   */
+  public synchronized void recordAll() {
+    examFlowChanged(inst.currentSemester(), inst.isCat1Done(), inst.isCat2Done(), inst.isFatDone());
+    inst.forEachRanked(this::studentAdded);
+  }
+
+  // Closes the current segment. Records not yet committed are lost.
+  @Override
+  public void close() throws IOException {
+    synchronized (flushLock) {
+      ch.close();
+    }
+  }
+
+  // ===== Segments =====
+
+  private static Path segmentPath(Path dir, long firstSeq) {
+    return dir.resolve(String.format("%s%019d%s", PREFIX, firstSeq, SUFFIX));
+  }
+
+  // Whether `dir` holds any segments
+  static boolean exists(Path dir) throws IOException {
+    return Files.isDirectory(dir) && list(dir).length > 0;
+  }
+
+  // First sequence numbers of the segments in `dir`, ascending
+  private static long[] list(Path dir) throws IOException {
+    ArrayList<Long> found = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+      for (Path f : files) {
+        String name = f.getFileName().toString();
+        try {
+          found.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+        } catch (NumberFormatException e) {
+          // Not a segment
+        }
+      }
+    }
+    long[] seqs = new long[found.size()];
+    for (int i = 0; i < seqs.length; i++)
+      seqs[i] = found.get(i);
+    Arrays.sort(seqs);
+    return seqs;
+  }
+
+  // New empty segment, durable (header and directory entry) before first use
+  private static FileChannel create(Path dir, long firstSeq) throws IOException {
+    FileChannel c = FileChannel.open(segmentPath(dir, firstSeq), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    try {
+      ByteBuffer head = ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(VERSION).putLong(firstSeq).flip();
+      while (head.hasRemaining())
+        c.write(head);
+      c.force(true);
+    } catch (IOException e) {
+      c.close();
+      throw e;
+    }
+    Snapshot.syncDir(dir);
+    return c;
+  }
+
+  // ===== Replay =====
+
+  /**
+   * Applies the valid records of segment `ch` (starting at sequence number
+   * `first`) whose number is at least `fromSeq`, in order. end[0] is set to
+   * the end of the last valid record and end[1] to the number of them.
+   * Returns the number applied; throws if a valid record cannot be applied.
+   */
+  private static int replay(FileChannel ch, Institute inst, long first, long fromSeq, long[] end)
+      throws IOException {
+    long size = ch.size();
+    if (size > Integer.MAX_VALUE)
+      throw new IOException("Journal segment too large: " + size);
+    ByteBuffer buf = ByteBuffer.allocate((int) size);
+    while (buf.hasRemaining()) {
+      if (ch.read(buf, buf.position()) < 0)
+        break;
+    }
+    buf.flip();
+    if (buf.getInt() != MAGIC)
+      throw new IOException("Not a journal file");
+    int version = buf.getInt();
+    if (version != VERSION)
+      throw new IOException("Unsupported journal version " + version);
+    if (buf.getLong() != first)
+      throw new IOException("Journal segment header does not match its name");
+
+    CRC32 crc = new CRC32();
+    int count = 0;
+    while (buf.remaining() >= 4) {
+      int start = buf.position();
+      int len = buf.getInt();
+      if (len < 1 || len > buf.remaining() - 4)
+        break;
+      crc.reset();
+      crc.update(buf.array(), start + 4, len);
+      if ((int) crc.getValue() != buf.getInt(start + 4 + len))
+        break;
+      if (first + end[1] >= fromSeq) {
+        ByteBuffer rec = buf.duplicate();
+        rec.position(start + 4).limit(start + 4 + len);
+        try {
+          apply(inst, rec);
+        } catch (RuntimeException e) {
+          // A valid record that cannot be applied is not a torn tail: cutting
+          // it off would silently drop it and everything committed after it
+          throw new IOException("Journal record " + (first + end[1]) + " could not be applied: " + e, e);
+        }
+        count++;
+      }
+      buf.position(start + 4 + len + 4);
+      end[0] = buf.position();
+      end[1]++;
+    }
+    return count;
+  }
+
+  private static void apply(Institute inst, ByteBuffer rec) {
+    int type = rec.get();
+    if (type == STUDENT_ADDED) {
+      Student s = Snapshot.getStudent(rec, null);
+      if (inst.getStudent(s.id()) == null)
+        inst.addStudent(s);
+      return;
+    }
+    if (type == ALL_PROMOTED) {
+      new PromotionEngine(inst).run();
+      return;
+    }
+    if (type == EXAM_FLOW) {
+      Snapshot.setExamFlow(inst, rec.getInt(), rec.get());
+      return;
+    }
+
+    String id = Snapshot.getString(rec);
+    if (type == STUDENT_REMOVED) {
+      inst.removeStudent(id);
+      return;
+    }
+    Student s = inst.getStudent(id);
+    if (s == null)
+      return;
+    switch (type) {
+      case SUBJECT_ADDED:
+        s.addSubject(rec.getInt(), Snapshot.getString(rec));
+        break;
+      case SUBJECT_REMOVED:
+        s.removeSubject(rec.getInt(), Snapshot.getString(rec));
+        break;
+      case MARK_PUSHED:
+        s.pushMark(rec.getInt(), Snapshot.getString(rec), EXAMS[rec.get()], rec.getDouble());
+        break;
+      case MARKS_PUSHED: {
+        int sem = rec.getInt();
+        int sub = Subject.names().intern(Snapshot.getString(rec));
+        Exam ex = EXAMS[rec.get()];
+        double[] marks = new double[rec.getInt()];
+        for (int i = 0; i < marks.length; i++)
+          marks[i] = rec.getDouble();
+        s.pushMarks(sem, sub, ex, marks, 0, marks.length);
+        break;
+      }
+      case MARK_ROLLED_BACK:
+        s.rollbackMark(rec.getInt(), Snapshot.getString(rec), EXAMS[rec.get()]);
+        break;
+      case SGPA_SET:
+        s.setSGPA(rec.getInt(), rec.getDouble());
+        break;
+      case SGPA_CALCULATED:
+        s.calculateSGPA(rec.getInt());
+        break;
+      case CGPA_SET:
+        s.setCGPA(rec.getDouble());
+        break;
+      case SEMESTER_PROMOTED:
+        s.promoteOneSemester();
+        break;
+      default:
+        throw new IllegalStateException("Unknown journal record type " + type);
+    }
+  }
+
+  // ===== Recording =====
+
+  private Snapshot.Out begin(int type) {
+    recordStart = pending.ensure(5).buf.position();
+    pending.putInt(0); // patched with the length in end()
+    pending.putByte(type);
+    return pending;
+  }
+
+  private void end() {
+    ByteBuffer buf = pending.buf;
+    int len = buf.position() - recordStart - 4;
+    buf.putInt(recordStart, len);
+    crc.reset();
+    crc.update(buf.array(), recordStart + 4, len);
+    pending.putInt((int) crc.getValue());
+    appended++;
+  }
+
+  // Header shared by per-student records: type, regid, semester, subject
+  private Snapshot.Out begin(int type, Student s, int sem, String subject) {
+    Snapshot.Out out = begin(type);
+    out.putString(s.id());
+    out.putInt(sem);
+    out.putString(subject);
+    return out;
+  }
+
+  @Override
+  public synchronized void studentAdded(Student s) {
+    Snapshot.putStudent(begin(STUDENT_ADDED), s, null);
+    end();
+  }
+
+  @Override
+  public synchronized void studentRemoved(String id) {
+    begin(STUDENT_REMOVED).putString(id);
+    end();
+  }
+
+  @Override
+  public synchronized void subjectAdded(Student s, int sem, String subject) {
+    begin(SUBJECT_ADDED, s, sem, subject);
+    end();
+  }
+
+  @Override
+  public synchronized void subjectRemoved(Student s, int sem, String subject) {
+    begin(SUBJECT_REMOVED, s, sem, subject);
+    end();
+  }
+
+  @Override
+  public synchronized void markPushed(Student s, int sem, String subject, Exam ex, double mark) {
+    Snapshot.Out out = begin(MARK_PUSHED, s, sem, subject);
+    out.putByte(ex.ordinal());
+    out.putDouble(mark);
+    end();
+  }
+
+  @Override
+  public synchronized void marksPushed(Student s, int sem, String subject, Exam ex, double[] marks, int off,
+      int len) {
+    Snapshot.Out out = begin(MARKS_PUSHED, s, sem, subject);
+    out.putByte(ex.ordinal());
+    out.putInt(len);
+    for (int i = 0; i < len; i++)
+      out.putDouble(marks[off + i]);
+    end();
+  }
+
+  @Override
+  public synchronized void markRolledBack(Student s, int sem, String subject, Exam ex) {
+    begin(MARK_ROLLED_BACK, s, sem, subject).putByte(ex.ordinal());
+    end();
+  }
+
+  @Override
+  public synchronized void sgpaSet(Student s, int sem, double v) {
+    Snapshot.Out out = begin(SGPA_SET);
+    out.putString(s.id());
+    out.putInt(sem);
+    out.putDouble(v);
+    end();
+  }
+
+  @Override
+  public synchronized void sgpaCalculated(Student s, int sem) {
+    Snapshot.Out out = begin(SGPA_CALCULATED);
+    out.putString(s.id());
+    out.putInt(sem);
+    end();
+  }
+
+  @Override
+  public synchronized void cgpaSet(Student s, double v) {
+    Snapshot.Out out = begin(CGPA_SET);
+    out.putString(s.id());
+    out.putDouble(v);
+    end();
+  }
+
+  @Override
+  public synchronized void semesterPromoted(Student s) {
+    begin(SEMESTER_PROMOTED).putString(s.id());
+    end();
+  }
+
+  @Override
+  public synchronized void allPromoted() {
+    begin(ALL_PROMOTED);
+    end();
+  }
+
+  @Override
+  public synchronized void examFlowChanged(int currentSemester, boolean cat1Done, boolean cat2Done,
+      boolean fatDone) {
+    Snapshot.Out out = begin(EXAM_FLOW);
+    out.putInt(currentSemester);
+    out.putByte(Snapshot.examFlags(cat1Done, cat2Done, fatDone));
+    end();
+  }
+}
@@ -0,0 +1,283 @@
+package gms.io;
+
+import gms.core.Exam;
+import gms.core.Institute;
+import gms.core.Student;
+import gms.core.Subject;
+import gms.dsa.ArrayList;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel import of marks.csv (regid, semester, subject, exam, values), by
+ * far the largest CSV file. The file is cut into byte ranges aligned to line
+ * starts and the ranges are parsed concurrently on a ForkJoinPool, straight
+ * from bytes. Each range becomes a batch of rows grouped into per-student
+ * runs; the batches are then applied in file order on the calling thread,
+ * one Student.pushMarks per row and one student lookup per run, so the
+ * institute (whose maps are not safe for concurrent readers) is never shared.
+ * Applying a batch overlaps with parsing the next few; at most about
+ * parallelism + 1 ranges are held in memory at once.
+ * Ranges are cut at line breaks, so a quoted field may not span lines here
+ * (saveCSV never writes one: regids and subject names are single-line).
+ */
+public final class MarksLoader {
+  // Smallest range worth a task of its own, and the largest one read at once
+  // (which, times the window, bounds the bytes held during a load)
+  static final int MIN_CHUNK = 1 << 20;
+  static final int MAX_CHUNK = 1 << 24;
+  private static final Exam[] EXAMS = Exam.values();
+
+  private MarksLoader() {
+  }
+
+  // Parsed rows of one byte range, in file order
+  static final class Batch {
+    // Runs of consecutive rows of one student: ids[k] owns rows before runEnd[k]
+    int runs;
+    String[] ids = new String[16];
+    int[] runEnd = new int[16];
+
+    int rows;
+    int[] sem = new int[64];
+    int[] subject = new int[64];
+    // Exam ordinal, or -1 for a row that failed to parse (see errors)
+    byte[] exam = new byte[64];
+    int[] markEnd = new int[64];
+    double[] marks = new double[256];
+    int nMarks;
+    // Parse failures, in row order; only thrown if the student exists
+    final ArrayList<RuntimeException> errors = new ArrayList<>();
+
+    void run(String id) {
+      if (runs == ids.length) {
+        ids = Arrays.copyOf(ids, runs * 2);
+        runEnd = Arrays.copyOf(runEnd, runs * 2);
+      }
+      ids[runs] = id;
+      runEnd[runs++] = rows;
+    }
+
+    void row(int s, int sub, int ex) {
+      if (rows == sem.length) {
+        int cap = rows * 2;
+        sem = Arrays.copyOf(sem, cap);
+        subject = Arrays.copyOf(subject, cap);
+        exam = Arrays.copyOf(exam, cap);
+        markEnd = Arrays.copyOf(markEnd, cap);
+      }
+      sem[rows] = s;
+      subject[rows] = sub;
+      exam[rows] = (byte) ex;
+      markEnd[rows] = nMarks;
+      rows++;
+      runEnd[runs - 1] = rows;
+    }
+
+    void mark(double v) {
+      if (nMarks == marks.length)
+        marks = Arrays.copyOf(marks, nMarks * 2);
+      marks[nMarks++] = v;
+    }
+  }
+
+  /**
+   * Loads every mark row of `file` into the matching students of `inst`
+   * (rows of unknown students are skipped, as are rows without values).
+   * Uses up to `parallelism` threads; returns the number of rows applied.
+   */
+  public static long load(Institute inst, Path file, int parallelism) throws IOException {
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = ch.size();
+      long start = lineAfter(ch, 0, size); // skip the header
+      long len = size - start;
+      int chunks = (int) Math.max(Math.min(parallelism * 4L, len / MIN_CHUNK), len / MAX_CHUNK + 1);
+      if (parallelism <= 1)
+        chunks = (int) (len / MAX_CHUNK + 1);
+
+      long[] bounds = new long[chunks + 1];
+      bounds[0] = start;
+      for (int k = 1; k < chunks; k++)
+        bounds[k] = Math.max(bounds[k - 1], lineAfter(ch, start + len * k / chunks - 1, size));
+      bounds[chunks] = size;
+
+      long rows = 0;
+      if (parallelism <= 1 || chunks == 1) {
+        for (int k = 0; k < chunks; k++)
+          rows += apply(inst, parse(ch, bounds[k], bounds[k + 1]));
+        return rows;
+      }
+
+      // Only a window of ranges is in flight, so memory stays bounded by
+      // about (parallelism + 1) ranges and their batches, whatever the file size
+      int window = parallelism + 1;
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        List<Future<Batch>> parsed = new ArrayList<>(chunks);
+        for (int k = 0; k < Math.min(window, chunks); k++)
+          parsed.add(submit(pool, ch, bounds[k], bounds[k + 1]));
+        for (int k = 0; k < chunks; k++) {
+          Batch batch = parsed.get(k).get();
+          parsed.set(k, null);
+          rows += apply(inst, batch);
+          int next = k + window;
+          if (next < chunks)
+            parsed.add(submit(pool, ch, bounds[next], bounds[next + 1]));
+        }
+        return rows;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while loading " + file, e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException)
+          throw (IOException) cause;
+        if (cause instanceof RuntimeException)
+          throw (RuntimeException) cause;
+        throw new IOException(cause);
+      } finally {
+        pool.shutdownNow();
+      }
+    }
+  }
+
+  private static Future<Batch> submit(ForkJoinPool pool, FileChannel ch, long from, long to) {
+    return pool.submit(() -> parse(ch, from, to));
+  }
+
+  // Offset of the line start at or after `pos + 1`: just past the next '\n'
+  // from `pos` on (or `size`)
+  private static long lineAfter(FileChannel ch, long pos, long size) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(8192);
+    while (pos < size) {
+      buf.clear();
+      int n = ch.read(buf, pos);
+      if (n <= 0)
+        break;
+      for (int i = 0; i < n; i++) {
+        if (buf.get(i) == '\n')
+          return pos + i + 1;
+      }
+      pos += n;
+    }
+    return size;
+  }
+
+  // ===== Parsing (worker threads) =====
+
+  static Batch parse(FileChannel ch, long from, long to) throws IOException {
+    byte[] b = new byte[(int) (to - from)];
+    ByteBuffer buf = ByteBuffer.wrap(b);
+    while (buf.hasRemaining()) {
+      if (ch.read(buf, from + buf.position()) < 0)
+        throw new IOException("File shrank while loading");
+    }
+
+    Batch batch = new Batch();
+    CSV.Cursor rows = new CSV.Cursor(b, 0, b.length);
+    CSV.Field token = new CSV.Field();
+    SubjectIds subjects = new SubjectIds();
+    while (rows.next()) {
+      if (rows.columns() >= 5)
+        parseRow(batch, rows, token, subjects);
+    }
+    return batch;
+  }
+
+  private static void parseRow(Batch batch, CSV.Cursor row, CSV.Field token, SubjectIds subjects) {
+    CSV.Field id = row.field(0);
+    if (batch.runs == 0 || !id.contentEquals(batch.ids[batch.runs - 1]))
+      batch.run(id.toString());
+
+    int firstMark = batch.nMarks;
+    try {
+      int sem = row.field(1).parseInt();
+      int sub = subjects.id(row.field(2));
+      int ex = exam(row.field(3));
+      CSV.Field values = row.field(4);
+      values.firstToken(token);
+      while (values.nextToken(';', token)) {
+        if (!token.isEmpty())
+          batch.mark(token.parseDouble());
+      }
+      if (batch.nMarks > firstMark)
+        batch.row(sem, sub, ex);
+    } catch (RuntimeException e) {
+      batch.nMarks = firstMark;
+      batch.errors.add(e);
+      batch.row(0, 0, -1);
+    }
+  }
+
+  // Exam.fromString of the field
+  private static int exam(CSV.Field f) {
+    for (Exam ex : EXAMS) {
+      if (f.equalsIgnoreCase(ex.name()))
+        return ex.ordinal();
+    }
+    return Exam.fromString(f.toString()).ordinal();
+  }
+
+  /**
+   * Subject.names() ids of field values. The last few names are remembered,
+   * so the subjects a student's rows cycle through are matched in place
+   * without building a String.
+   */
+  static final class SubjectIds {
+    private final int[] recent = new int[16];
+    private int size;
+    private int next;
+
+    int id(CSV.Field f) {
+      for (int i = 0; i < size; i++) {
+        if (f.contentEquals(Subject.names().name(recent[i])))
+          return recent[i];
+      }
+      String name = f.toString();
+      int id = Subject.names().id(name);
+      if (id < 0)
+        id = Subject.names().intern(name);
+      recent[next] = id;
+      next = (next + 1) % recent.length;
+      size = Math.min(size + 1, recent.length);
+      return id;
+    }
+  }
+
+  // ===== Applying (calling thread) =====
+
+  private static int apply(Institute inst, Batch batch) {
+    int row = 0;
+    int error = 0;
+    for (int k = 0; k < batch.runs; k++) {
+      Student s = inst.getStudent(batch.ids[k]);
+      int end = batch.runEnd[k];
+      if (s == null) {
+        // Skipped, like the rows' parse errors
+        for (; row < end; row++) {
+          if (batch.exam[row] < 0)
+            error++;
+        }
+        continue;
+      }
+      for (; row < end; row++) {
+        int ex = batch.exam[row];
+        if (ex < 0)
+          throw batch.errors.get(error);
+        int from = row == 0 ? 0 : batch.markEnd[row - 1];
+        s.pushMarks(batch.sem[row], batch.subject[row], EXAMS[ex], batch.marks, from,
+            batch.markEnd[row] - from);
+      }
+    }
+    return batch.rows;
+  }
+}
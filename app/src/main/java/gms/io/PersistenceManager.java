@@ -1,15 +1,20 @@
 package gms.io;
 
+import gms.core.ChangeListener;
 import gms.core.Exam;
 import gms.core.Institute;
 import gms.core.Student;
+import gms.core.Subject;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Iterator;
-import java.util.List;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public class PersistenceManager {
+  public static final String SNAPSHOT = "snapshot.gms";
+
   public static boolean deleteCSV(String dir) {
     String[] files = { "state.csv", "students.csv", "subjects.csv", "marks.csv", "sgpa.csv" };
     boolean allDeleted = true;
@@ -32,6 +37,10 @@ public class PersistenceManager {
 
   public static boolean saveCSV(Institute inst, String dir) {
     try {
+      if (foreignJournal(inst, dir)) {
+        System.err.println("Save failed: " + dir + " holds journal segments this institute is not recording into");
+        return false;
+      }
       new File(dir).mkdirs();
 
       try (CSV.Writer state = new CSV.Writer(dir + "/state.csv");
@@ -52,19 +61,17 @@ public class PersistenceManager {
         inst.forEachStudent(s -> {
           students.row(s.id(), s.name(), s.semester(), s.getCGPA());
           for (int sem = 1; sem <= s.semester(); sem++) {
-            sgpa.row(s.id(), sem, s.getSGPA(sem));
+            if (s.hasSGPA(sem))
+              sgpa.row(s.id(), sem, s.getSGPA(sem));
             for (String sub : s.listSubjects(sem)) {
               subjects.row(s.id(), sem, sub);
               for (Exam ex : new Exam[] { Exam.CAT1, Exam.CAT2, Exam.FAT }) {
                 StringBuilder values = new StringBuilder();
-                var hist = s.marksHistory(sem, sub, ex);
-                boolean first = true;
-                for (Double v : hist) {
-                  if (!first)
+                s.forEachMark(sem, sub, ex, v -> {
+                  if (values.length() > 0)
                     values.append(';');
                   values.append(v);
-                  first = false;
-                }
+                });
                 marks.row(s.id(), sem, sub, ex.display(), values.toString());
               }
             }
@@ -92,38 +99,34 @@ public class PersistenceManager {
 
       // state
       if (stateF.exists()) {
-        try (CSV.Reader r = new CSV.Reader(stateF.getPath())) {
-          r.readRow(); // header
-          List<String> row = r.readRow();
-          if (row != null && row.size() >= 4) {
-            Iterator<String> it = row.iterator();
-            inst.setCurrentSemester(Integer.parseInt(it.next()));
-            inst.setCat1Done(parseBool(it.next()));
-            inst.setCat2Done(parseBool(it.next()));
-            inst.setFatDone(parseBool(it.next()));
+        try (CSV.Cursor r = new CSV.Cursor(stateF.getPath())) {
+          r.next(); // header
+          if (r.next() && r.columns() >= 4) {
+            inst.setCurrentSemester(r.field(0).parseInt());
+            inst.setCat1Done(parseBool(r.field(1)));
+            inst.setCat2Done(parseBool(r.field(2)));
+            inst.setFatDone(parseBool(r.field(3)));
           }
         }
       }
 
       // students
       if (studentsF.exists()) {
-        try (CSV.Reader r = new CSV.Reader(studentsF.getPath())) {
-          r.readRow();
-          List<String> row;
-          while ((row = r.readRow()) != null) {
-            if (row.size() < 4)
+        try (CSV.Cursor r = new CSV.Cursor(studentsF.getPath())) {
+          r.next(); // header
+          while (r.next()) {
+            if (r.columns() < 4)
               continue;
 
-            Iterator<String> it = row.iterator();
-            String id = it.next();
-            String name = it.next();
-            int sem = Integer.parseInt(it.next());
-            double cg = Double.parseDouble(it.next());
-
-            if (inst.getStudent(id) == null)
-              inst.addStudent(new Student(id, name));
-
+            String id = r.field(0).toString();
             Student s = inst.getStudent(id);
+            if (s == null) {
+              s = new Student(id, r.field(1).toString());
+              inst.addStudent(s);
+            }
+            int sem = r.field(2).parseInt();
+            double cg = r.field(3).parseDouble();
+
             while (s.semester() < sem)
               s.promoteOneSemester();
 
@@ -134,81 +137,83 @@ public class PersistenceManager {
 
       // subjects
       if (subjectsF.exists()) {
-        try (CSV.Reader r = new CSV.Reader(subjectsF.getPath())) {
-          r.readRow(); // skip header
-          List<String> row;
-          while ((row = r.readRow()) != null) {
-            if (row.size() < 3)
+        try (CSV.Cursor r = new CSV.Cursor(subjectsF.getPath())) {
+          r.next(); // header
+          StudentRuns students = new StudentRuns(inst);
+          MarksLoader.SubjectIds names = new MarksLoader.SubjectIds();
+          while (r.next()) {
+            if (r.columns() < 3)
               continue;
 
-            Iterator<String> it = row.iterator();
-
-            String id = it.next();
-            Student s = inst.getStudent(id);
+            Student s = students.get(r.field(0));
             if (s != null) {
-              int sem = Integer.parseInt(it.next());
-              String sub = it.next();
-              s.addSubject(sem, sub);
+              int sem = r.field(1).parseInt();
+              // Interned ids, so no name string is kept per student
+              s.addSubject(sem, names.id(r.field(2)));
             }
           }
         }
       }
 
-      // marks
-      if (marksF.exists()) {
-        try (CSV.Reader r = new CSV.Reader(marksF.getPath())) {
-          r.readRow(); // skip header
-          List<String> row;
-          while ((row = r.readRow()) != null) {
-            if (row.size() < 5)
-              continue;
+      // marks: the largest file, parsed in parallel (see MarksLoader)
+      if (marksF.exists())
+        MarksLoader.load(inst, marksF.toPath(), Runtime.getRuntime().availableProcessors());
 
-            Iterator<String> it = row.iterator();
+      // sgpa
+      if (sgpaF.exists()) {
+        try (CSV.Cursor r = new CSV.Cursor(sgpaF.getPath())) {
+          r.next(); // header
+          StudentRuns students = new StudentRuns(inst);
+          while (r.next()) {
+            if (r.columns() < 3)
+              continue;
 
-            String id = it.next();
-            Student s = inst.getStudent(id);
+            Student s = students.get(r.field(0));
             if (s == null)
               continue;
 
-            int sem = Integer.parseInt(it.next());
-            String sub = it.next();
-            Exam ex = Exam.fromString(it.next());
-            String vals = it.next();
+            int sem = r.field(1).parseInt();
+            double val = r.field(2).parseDouble();
 
-            if (!vals.isEmpty()) {
-              for (String tok : vals.split(";")) {
-                if (!tok.isEmpty())
-                  s.pushMark(sem, sub, ex, Double.parseDouble(tok));
-              }
-            }
+            s.setSGPA(sem, val);
           }
         }
       }
 
-      // sgpa
-      if (sgpaF.exists()) {
-        try (CSV.Reader r = new CSV.Reader(sgpaF.getPath())) {
-          r.readRow(); // skip header
-          List<String> row;
-          while ((row = r.readRow()) != null) {
-            if (row.size() < 3)
-              continue;
-
-            Iterator<String> it = row.iterator();
+      return true;
+    } catch (IOException e) {
+      System.err.println("Load failed: " + e.getMessage());
+      return false;
+    }
+  }
 
-            String id = it.next();
-            Student s = inst.getStudent(id);
-            if (s == null)
-              continue;
+  // ===== Binary snapshot (see Snapshot for the format) =====
 
-            int sem = Integer.parseInt(it.next());
-            double val = Double.parseDouble(it.next());
+  public static boolean hasBinary(String dir) {
+    return Files.exists(snapshotPath(dir));
+  }
 
-            s.setSGPA(sem, val);
-          }
-        }
+  public static boolean saveBinary(Institute inst, String dir) {
+    try {
+      if (foreignJournal(inst, dir)) {
+        System.err.println("Save failed: " + dir + " holds journal segments this institute is not recording into");
+        return false;
       }
+      Files.createDirectories(Paths.get(dir));
+      Snapshot.write(inst, snapshotPath(dir), journalSeq(inst));
+      return true;
+    } catch (IOException e) {
+      System.err.println("Save failed: " + e.getMessage());
+      return false;
+    }
+  }
 
+  public static boolean loadBinary(Institute inst, String dir) {
+    Path file = snapshotPath(dir);
+    if (!Files.exists(file))
+      return true;
+    try {
+      Snapshot.read(inst, file);
       return true;
     } catch (IOException e) {
       System.err.println("Load failed: " + e.getMessage());
@@ -216,11 +221,113 @@ public class PersistenceManager {
     }
   }
 
+  /**
+   * Deletes the snapshot and CSV files in `dir` and empties `journal`. The
+   * in-memory state is re-recorded into the journal uncommitted, so (as
+   * before) the data is gone unless it is saved again.
+   */
+  public static boolean deleteAll(String dir, Journal journal) {
+    boolean ok = deleteBinary(dir) & deleteCSV(dir);
+    try {
+      journal.reset();
+      journal.recordAll();
+    } catch (IOException e) {
+      System.err.println("Journal reset failed: " + e.getMessage());
+      ok = false;
+    }
+    return ok;
+  }
+
+  public static boolean deleteBinary(String dir) {
+    try {
+      Files.deleteIfExists(snapshotPath(dir));
+      return true;
+    } catch (IOException e) {
+      System.err.println("Failed to delete: " + e.getMessage());
+      return false;
+    }
+  }
+
+  // Rewrites the CSV files in `dir` as a binary snapshot
+  public static boolean csvToBinary(String dir) {
+    Institute inst = new Institute();
+    return loadCSV(inst, dir) && saveBinary(inst, dir);
+  }
+
+  // Rewrites the binary snapshot in `dir` as CSV files
+  public static boolean binaryToCSV(String dir) {
+    Institute inst = new Institute();
+    return loadBinary(inst, dir) && saveCSV(inst, dir);
+  }
+
+  // ===== Journal (see Journal) =====
+
+  /**
+   * Loads the last checkpoint in `dir` (the binary snapshot, else the CSV
+   * files), replays the journal records after it and attaches the journal to
+   * `inst`. Fails if the checkpoint cannot be read, or a journal record
+   * cannot be applied: carrying on from partial state would let the next save
+   * overwrite the files that still hold the data. After a failure `inst`
+   * holds partial state and must be discarded; the files are left as they
+   * are.
+   */
+  public static Journal recover(Institute inst, String dir) throws IOException {
+    long fromSeq = 0;
+    if (hasBinary(dir)) {
+      try {
+        fromSeq = Snapshot.read(inst, snapshotPath(dir));
+      } catch (IOException e) {
+        // The CSV files are no fallback: checkpoints only write the snapshot
+        throw new IOException(snapshotPath(dir) + ": " + e.getMessage(), e);
+      }
+    } else if (!loadCSV(inst, dir)) {
+      throw new IOException("the CSV files in " + dir + " cannot be read");
+    }
+    return Journal.open(Paths.get(dir), inst, fromSeq);
+  }
+
+  // Journal segments in `dir` hold the records after its last checkpoint. A
+  // checkpoint of an institute that is not recording into them would claim
+  // to cover none, and recovery would replay them on top of it a second time.
+  private static boolean foreignJournal(Institute inst, String dir) throws IOException {
+    return !(inst.changeListener() instanceof Journal) && Journal.exists(Paths.get(dir));
+  }
+
+  // A snapshot of a journaled institute holds every record appended so far
+  private static long journalSeq(Institute inst) {
+    ChangeListener l = inst.changeListener();
+    return l instanceof Journal ? ((Journal) l).sequence() : 0;
+  }
+
+  private static Path snapshotPath(String dir) {
+    return Paths.get(dir, SNAPSHOT);
+  }
+
   private static int booleanToInteger(boolean v) {
     return v ? 1 : 0;
   }
 
-  private static boolean parseBool(String s) {
-    return "1".equals(s) || "true".equalsIgnoreCase(s);
+  private static boolean parseBool(CSV.Field f) {
+    return f.contentEquals("1") || f.equalsIgnoreCase("true");
+  }
+
+  // Student of a regid field. Rows come grouped by student, so the last one
+  // is remembered and a run of its rows costs no String or map lookup.
+  private static final class StudentRuns {
+    private final Institute inst;
+    private String id;
+    private Student student;
+
+    StudentRuns(Institute inst) {
+      this.inst = inst;
+    }
+
+    Student get(CSV.Field f) {
+      if (id == null || !f.contentEquals(id)) {
+        id = f.toString();
+        student = inst.getStudent(id);
+      }
+      return student;
+    }
   }
 }
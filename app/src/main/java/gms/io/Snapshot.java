@@ -0,0 +1,322 @@
+package gms.io;
+
+import gms.core.Exam;
+import gms.core.Institute;
+import gms.core.Student;
+import gms.core.Subject;
+import gms.dsa.ArrayList;
+import gms.dsa.HashMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of an institute. All integers are big-endian and every
+ * string and array is length-prefixed:
+ *
+ * <pre>
+ * "GMSB" int version, long journalSeq
+ * int currentSemester, byte examFlags (bit 0 CAT1, 1 CAT2, 2 FAT done)
+ * int nStrings, { int len, UTF-8 bytes }     subject names
+ * int nStudents, {
+ *   string id, string name, int semester, double cgpa
+ *   int nSgpa, { int sem, double sgpa }
+ *   int nSems, { int nSubjects, { int nameIdx, 3 x { int n, double[n] } } }
+ * }
+ * long CRC32 of all preceding bytes
+ * </pre>
+ *
+ * Marks are raw doubles, so a save/load round trip is exact and loading
+ * needs no text parsing at all. `journalSeq` is the sequence number of the
+ * first journal record the snapshot does not include (version 1 files have
+ * none and count as 0).
+ */
+final class Snapshot {
+  static final int MAGIC = 0x474D5342; // "GMSB"
+  static final int VERSION = 2;
+  private static final Exam[] EXAMS = Exam.values();
+
+  private Snapshot() {
+  }
+
+  // Growable big-endian byte buffer
+  static final class Out {
+    ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+
+    Out ensure(int n) {
+      if (buf.remaining() < n) {
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + n));
+        buf.flip();
+        bigger.put(buf);
+        buf = bigger;
+      }
+      return this;
+    }
+
+    void putByte(int v) {
+      ensure(1).buf.put((byte) v);
+    }
+
+    void putInt(int v) {
+      ensure(4).buf.putInt(v);
+    }
+
+    void putLong(long v) {
+      ensure(8).buf.putLong(v);
+    }
+
+    void putDouble(double v) {
+      ensure(8).buf.putDouble(v);
+    }
+
+    void putString(String s) {
+      byte[] b = s.getBytes(StandardCharsets.UTF_8);
+      ensure(4 + b.length).buf.putInt(b.length);
+      buf.put(b);
+    }
+  }
+
+  // Subject names of a snapshot, numbered in order of first use
+  static final class StringTable {
+    private final HashMap<String, Integer> index = new HashMap<>();
+    final ArrayList<String> strings = new ArrayList<>();
+
+    int indexOf(String str) {
+      Integer idx = index.get(str);
+      if (idx == null) {
+        idx = strings.size();
+        strings.add(str);
+        index.put(str, idx);
+      }
+      return idx;
+    }
+  }
+
+  static void write(Institute inst, Path file, long journalSeq) throws IOException {
+    writeTo(encode(inst, journalSeq), file);
+  }
+
+  // The whole file in memory: header + string table, body, CRC trailer
+  static ByteBuffer[] encode(Institute inst, long journalSeq) {
+    // Subject names are gathered while encoding students, so the body is
+    // built first and the header + string table written in front of it
+    StringTable table = new StringTable();
+    Out body = new Out();
+    int[] count = { 0 };
+
+    // Rank order, so loading can rebuild the rank index without sorting
+    inst.forEachRanked(s -> {
+      count[0]++;
+      putStudent(body, s, table);
+    });
+
+    Out head = new Out();
+    head.putInt(MAGIC);
+    head.putInt(VERSION);
+    head.putLong(journalSeq);
+    head.putInt(inst.currentSemester());
+    head.putByte(examFlags(inst.isCat1Done(), inst.isCat2Done(), inst.isFatDone()));
+    head.putInt(table.strings.size());
+    for (String str : table.strings)
+      head.putString(str);
+    head.putInt(count[0]);
+
+    ByteBuffer h = head.buf.flip();
+    ByteBuffer b = body.buf.flip();
+    CRC32 crc = new CRC32();
+    crc.update(h.duplicate());
+    crc.update(b.duplicate());
+    ByteBuffer tail = ByteBuffer.allocate(8).putLong(crc.getValue()).flip();
+    return new ByteBuffer[] { h, b, tail };
+  }
+
+  static void writeTo(ByteBuffer[] image, Path file) throws IOException {
+    // Write beside the target and rename, so a crash never leaves half a snapshot
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer last = image[image.length - 1];
+      while (last.hasRemaining())
+        ch.write(image);
+      ch.force(true);
+    }
+    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    syncDir(file.toAbsolutePath().getParent());
+  }
+
+  // Makes renames and deletes in `dir` durable where the platform allows it
+  static void syncDir(Path dir) {
+    try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+      ch.force(true);
+    } catch (IOException e) {
+      // Not supported for directories here (e.g. Windows); nothing more to do
+    }
+  }
+
+  // Loads the snapshot into `inst`; returns its journalSeq
+  static long read(Institute inst, Path file) throws IOException {
+    ByteBuffer buf;
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = ch.size();
+      if (size < 20 || size > Integer.MAX_VALUE)
+        throw new IOException("Corrupt snapshot: bad size " + size);
+      buf = ByteBuffer.allocate((int) size);
+      while (buf.hasRemaining()) {
+        if (ch.read(buf) < 0)
+          throw new IOException("Corrupt snapshot: truncated");
+      }
+      buf.flip();
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(buf.duplicate().limit(buf.limit() - 8));
+    if (crc.getValue() != buf.getLong(buf.limit() - 8))
+      throw new IOException("Corrupt snapshot: checksum mismatch");
+    buf.limit(buf.limit() - 8);
+
+    try {
+      if (buf.getInt() != MAGIC)
+        throw new IOException("Not a snapshot file: " + file);
+      int version = buf.getInt();
+      if (version != 1 && version != VERSION)
+        throw new IOException("Unsupported snapshot version " + version);
+      long journalSeq = version == 1 ? 0 : buf.getLong();
+
+      setExamFlow(inst, buf.getInt(), buf.get());
+
+      int nStrings = buf.getInt();
+      int[] subjectIds = new int[nStrings];
+      for (int i = 0; i < nStrings; i++)
+        subjectIds[i] = Subject.names().intern(getString(buf));
+
+      int nStudents = buf.getInt();
+      ArrayList<Student> batch = new ArrayList<>(nStudents);
+      for (int i = 0; i < nStudents; i++) {
+        Student s = getStudent(buf, subjectIds);
+        if (inst.getStudent(s.id()) == null)
+          batch.add(s);
+      }
+      // Fully built students go in as one batch, so every index is filled in one go
+      inst.addStudents(batch);
+      return journalSeq;
+    } catch (RuntimeException e) {
+      throw new IOException("Corrupt snapshot: " + e, e);
+    }
+  }
+
+  /**
+   * One student record: everything needed to rebuild the student exactly.
+   * Subject names are string-table indexes, or inline strings when `table`
+   * is null (journal records).
+   */
+  static void putStudent(Out out, Student s, StringTable table) {
+    out.putString(s.id());
+    out.putString(s.name());
+    out.putInt(s.semester());
+    out.putDouble(s.getCGPA());
+
+    int nSgpa = 0;
+    for (int sem = 1; sem <= s.semester(); sem++) {
+      if (s.hasSGPA(sem))
+        nSgpa++;
+    }
+    out.putInt(nSgpa);
+    for (int sem = 1; sem <= s.semester(); sem++) {
+      if (s.hasSGPA(sem)) {
+        out.putInt(sem);
+        out.putDouble(s.getSGPA(sem));
+      }
+    }
+
+    out.putInt(s.semester());
+    for (int sem = 1; sem <= s.semester(); sem++) {
+      List<String> subs = s.listSubjects(sem);
+      out.putInt(subs.size());
+      for (String sub : subs) {
+        if (table != null)
+          out.putInt(table.indexOf(sub));
+        else
+          out.putString(sub);
+        for (Exam ex : EXAMS) {
+          int at = out.ensure(4).buf.position();
+          out.buf.putInt(0); // patched with the count below
+          int[] n = { 0 };
+          s.forEachMark(sem, sub, ex, v -> {
+            out.putDouble(v);
+            n[0]++;
+          });
+          out.buf.putInt(at, n[0]);
+        }
+      }
+    }
+  }
+
+  // Reads a putStudent record; `subjectIds` maps string-table indexes to
+  // Subject.names() ids, null for inline names
+  static Student getStudent(ByteBuffer buf, int[] subjectIds) {
+    Student s = new Student(getString(buf), getString(buf));
+    int semester = buf.getInt();
+    while (s.semester() < semester)
+      s.promoteOneSemester();
+    double cgpa = buf.getDouble();
+
+    int nSgpa = buf.getInt();
+    int[] sgpaSem = new int[nSgpa];
+    double[] sgpaVal = new double[nSgpa];
+    for (int k = 0; k < nSgpa; k++) {
+      sgpaSem[k] = buf.getInt();
+      sgpaVal[k] = buf.getDouble();
+    }
+
+    double[] marks = new double[8];
+    int nSems = buf.getInt();
+    for (int sem = 1; sem <= nSems; sem++) {
+      int nSubs = buf.getInt();
+      for (int k = 0; k < nSubs; k++) {
+        int sub = subjectIds != null ? subjectIds[buf.getInt()] : Subject.names().intern(getString(buf));
+        s.addSubject(sem, sub);
+        for (Exam ex : EXAMS) {
+          int n = buf.getInt();
+          if (n > marks.length)
+            marks = new double[Math.max(n, marks.length * 2)];
+          for (int m = 0; m < n; m++)
+            marks[m] = buf.getDouble();
+          s.pushMarks(sem, sub, ex, marks, 0, n);
+        }
+      }
+    }
+
+    // Recorded SGPAs and CGPA last, as stored, so mark replay cannot alter them
+    for (int k = 0; k < nSgpa; k++)
+      s.setSGPA(sgpaSem[k], sgpaVal[k]);
+    s.setCGPA(cgpa);
+    return s;
+  }
+
+  // Exam-flow flags as one byte: bit 0 CAT1, 1 CAT2, 2 FAT done
+  static int examFlags(boolean cat1Done, boolean cat2Done, boolean fatDone) {
+    return (cat1Done ? 1 : 0) | (cat2Done ? 2 : 0) | (fatDone ? 4 : 0);
+  }
+
+  static void setExamFlow(Institute inst, int currentSemester, int flags) {
+    inst.setCurrentSemester(currentSemester);
+    inst.setCat1Done((flags & 1) != 0);
+    inst.setCat2Done((flags & 2) != 0);
+    inst.setFatDone((flags & 4) != 0);
+  }
+
+  static String getString(ByteBuffer buf) {
+    int len = buf.getInt();
+    String s = new String(buf.array(), buf.arrayOffset() + buf.position(), len, StandardCharsets.UTF_8);
+    buf.position(buf.position() + len);
+    return s;
+  }
+}
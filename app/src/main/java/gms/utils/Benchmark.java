@@ -2,8 +2,19 @@ package gms.utils;
 
 import gms.core.*;
 import gms.dsa.*;
+import gms.io.CSV;
+import gms.io.MarksLoader;
+import gms.io.PersistenceManager;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
 
 /**
  * Benchmarks core operations using analytical memory model instead of JVM heap
@@ -17,6 +28,11 @@ public class Benchmark {
   private static final int STEP = 1000;
   private static final int REPEAT = 1000;
 
+  // Bulk-load sizes for worst-case latency benchmarks
+  private static final int BULK_START = 100000;
+  private static final int BULK_END = 500000;
+  private static final int BULK_STEP = 100000;
+
   public static void runAll() {
     System.out.println("Benchmarking...");
 
@@ -35,6 +51,24 @@ public class Benchmark {
       benchmarkHashMapGet(out);
       System.out.println("Benchmarking HashMap Remove...");
       benchmarkHashMapRemove(out);
+      System.out.println("Benchmarking HashMap Put Latency (stop-the-world vs incremental resize)...");
+      benchmarkHashMapPutLatency(out);
+      System.out.println("Benchmarking HashMap Get with colliding regids...");
+      benchmarkAdversarialGet(out);
+      System.out.println("Benchmarking List Get/Iterate (DoublyLinkedList vs ArrayList)...");
+      benchmarkListAccess(out);
+      System.out.println("Benchmarking end-of-semester promotion (sequential vs parallel)...");
+      benchmarkPromotion(out);
+      System.out.println("Benchmarking SGPA over object graph vs columnar MarkStore...");
+      benchmarkBatchSGPA(out);
+      System.out.println("Benchmarking heap footprint per student...");
+      benchmarkFootprint(out);
+      System.out.println("Benchmarking cold-start load (CSV vs binary snapshot)...");
+      benchmarkColdStart(out);
+      System.out.println("Benchmarking marks.csv import (line by line vs parallel chunks)...");
+      benchmarkMarksImport(out);
+      System.out.println("Benchmarking concurrent lookups (locked vs concurrent Institute)...");
+      benchmarkConcurrentInstitute(out);
       System.out.println("Benchmarking HistoryDisplay...");
       benchmarkHistoryDisplay(out);
 
@@ -43,6 +77,7 @@ public class Benchmark {
         Institute inst = new Institute();
         populateStudentsForSorting(inst, n);
         benchmarkMergeSort(out, inst, n);
+        benchmarkSortShapes(out, inst, n);
       }
 
       System.out.println("Benchmarks complete -> benchmarks.csv");
@@ -162,7 +197,7 @@ public class Benchmark {
   // ========== 4. History traversal (O(n)) ==========
   private static void benchmarkHistoryDisplay(FileWriter out) throws IOException {
     for (int h = START; h <= END; h += STEP) {
-      Stack<Double> stack = new Stack<>();
+      DoubleStack stack = new DoubleStack();
       for (int i = 0; i < h; i++)
         stack.push(80.0 + (i % 20));
 
@@ -171,7 +206,8 @@ public class Benchmark {
 
       for (int r = 0; r < 1; r++) {
         long t0 = System.nanoTime();
-        stack.emptyTraversal(); // Simulate printing to output stream
+        stack.forEachNewestFirst(v -> {
+        }); // Simulate printing to output stream
         long t1 = System.nanoTime();
         total += (t1 - t0);
       }
@@ -217,7 +253,63 @@ public class Benchmark {
     out.write("MergeSort," + n + "," + avg + "," + memKB + "\n");
   }
 
-  // ========== HashMap PUT (O(1)) ==========
+  // ========== 6. Classic vs adaptive vs parallel merge sort on differently ordered input ==========
+  private static void benchmarkSortShapes(FileWriter out, Institute inst, int n) throws IOException {
+    Comparator<Student> byCgpa = (a, b) -> Double.compare(b.getCGPA(), a.getCGPA());
+    int cores = Runtime.getRuntime().availableProcessors();
+
+    DoublyLinkedList<Student> presorted = inst.getAllStudents();
+    MergeSort.sort(presorted, byCgpa);
+
+    DoublyLinkedList<Student> reversed = new DoublyLinkedList<>();
+    for (DoublyLinkedList.Node<Student> cur = presorted.tail; cur != null; cur = cur.prev)
+      reversed.add(cur.data);
+
+    Object[] shuffled = presorted.toArray();
+    Random rnd = new Random(n);
+    for (int i = shuffled.length - 1; i > 0; i--) {
+      int j = rnd.nextInt(i + 1);
+      Object tmp = shuffled[i];
+      shuffled[i] = shuffled[j];
+      shuffled[j] = tmp;
+    }
+    DoublyLinkedList<Student> random = new DoublyLinkedList<>();
+    for (Object o : shuffled)
+      random.add((Student) o);
+
+    String[] shapes = { "Presorted", "Reversed", "Random" };
+    DoublyLinkedList<?>[] inputs = { presorted, reversed, random };
+    for (int i = 0; i < shapes.length; i++) {
+      @SuppressWarnings("unchecked")
+      DoublyLinkedList<Student> input = (DoublyLinkedList<Student>) inputs[i];
+      out.write("MergeSort" + shapes[i] + "," + n + "," + timeSort(input, byCgpa, MergeSort::sort) + ",0\n");
+      out.write("AdaptiveSort" + shapes[i] + "," + n + "," + timeSort(input, byCgpa, MergeSort::adaptiveSort) + ",0\n");
+      out.write("ParallelSort" + shapes[i] + "," + n + ","
+          + timeSort(input, byCgpa, (list, comp) -> MergeSort.parallelSort(list, comp, cores)) + ",0\n");
+    }
+  }
+
+  private interface ListSort {
+    void sort(DoublyLinkedList<Student> list, Comparator<Student> comp);
+  }
+
+  private static long timeSort(DoublyLinkedList<Student> input, Comparator<Student> comp, ListSort sort) {
+    int runs = REPEAT / 10;
+    DoublyLinkedList<DoublyLinkedList<Student>> copies = new DoublyLinkedList<>();
+    for (int r = 0; r < runs; r++)
+      copies.add(new DoublyLinkedList<>(input));
+
+    long total = 0;
+    for (DoublyLinkedList<Student> copy : copies) {
+      long t0 = System.nanoTime();
+      sort.sort(copy, comp);
+      long t1 = System.nanoTime();
+      total += (t1 - t0);
+    }
+    return total / runs;
+  }
+
+  // ========== 7. HashMap PUT (O(1)) ==========
   private static void benchmarkHashMapPut(FileWriter out) throws IOException {
     for (int n = START; n <= END; n += STEP) {
 
@@ -254,7 +346,7 @@ public class Benchmark {
     }
   }
 
-  // ========== 6. HashMap GET (O(1)) ==========
+  // ========== 8. HashMap GET (O(1)) ==========
   private static void benchmarkHashMapGet(FileWriter out) throws IOException {
     for (int n = START; n <= END; n += STEP) {
       HashMap<String, Integer> map = new HashMap<>();
@@ -279,7 +371,7 @@ public class Benchmark {
     }
   }
 
-  // ========== 7. HashMap REMOVE (O(1)) ==========
+  // ========== 9. HashMap REMOVE (O(1)) ==========
   private static void benchmarkHashMapRemove(FileWriter out) throws IOException {
     for (int n = START; n <= END; n += STEP) {
 
@@ -319,6 +411,438 @@ public class Benchmark {
     }
   }
 
+  // ========== 10. HashMap PUT tail latency during bulk load ==========
+  // Every put is timed individually so the resize pauses show up in p99/max.
+  private static void benchmarkHashMapPutLatency(FileWriter out) throws IOException {
+    for (int n = BULK_START; n <= BULK_END; n += BULK_STEP) {
+      for (boolean incremental : new boolean[] { false, true }) {
+        String op = incremental ? "IncrementalPut" : "HashMapPut";
+        String[] keys = new String[n];
+        for (int i = 0; i < n; i++)
+          keys[i] = "21BCE" + i;
+
+        long[] lat = new long[n];
+        long before = usedMemory(true);
+        HashMap<String, Integer> map = new HashMap<>(16, incremental);
+        for (int i = 0; i < n; i++) {
+          long t0 = System.nanoTime();
+          map.put(keys[i], i);
+          lat[i] = System.nanoTime() - t0;
+        }
+        long mem = usedMemory(false) - before;
+
+        long total = 0;
+        for (long l : lat)
+          total += l;
+        Arrays.sort(lat);
+
+        out.write(op + "Avg," + n + "," + (total / n) + "," + mem + "\n");
+        out.write(op + "P99," + n + "," + lat[(int) (n * 0.99)] + "," + mem + "\n");
+        out.write(op + "Max," + n + "," + lat[n - 1] + "," + mem + "\n");
+      }
+    }
+  }
+
+  // ========== 11. promoteAll on one thread vs the ForkJoinPool ==========
+  // Rows: Promote{Sequential,Parallel}{Compute,Publish,Promote,Total}
+  private static void benchmarkPromotion(FileWriter out) throws IOException {
+    int cores = Runtime.getRuntime().availableProcessors();
+    for (int n = BULK_START; n <= BULK_END; n += BULK_STEP) {
+      for (int parallelism : new int[] { 1, cores }) {
+        String op = parallelism == 1 ? "PromoteSequential" : "PromoteParallel";
+        Institute inst = new Institute();
+        populateStudentsForSorting(inst, n);
+
+        long before = usedMemory(true);
+        PromotionEngine.Report r = new PromotionEngine(inst, parallelism, null).run();
+        long mem = usedMemory(false) - before;
+
+        out.write(op + "Compute," + n + "," + r.computeNanos() + "," + mem + "\n");
+        out.write(op + "Publish," + n + "," + r.publishNanos() + "," + mem + "\n");
+        out.write(op + "Promote," + n + "," + r.promoteNanos() + "," + mem + "\n");
+        out.write(op + "Total," + n + "," + r.totalNanos() + "," + mem + "\n");
+      }
+    }
+  }
+
+  // ========== 12. Every student's SGPA: object graph walk vs MarkStore column scan ==========
+  private static void benchmarkBatchSGPA(FileWriter out) throws IOException {
+    for (int n = BULK_START; n <= BULK_END; n += BULK_STEP) {
+      Institute inst = new Institute();
+      populateStudentsForSorting(inst, n);
+      DoublyLinkedList<Student> all = inst.getAllStudents();
+
+      double sink = 0;
+      long graph = Long.MAX_VALUE;
+      for (int r = 0; r < 5; r++) {
+        long t0 = System.nanoTime();
+        for (Student s : all) {
+          List<String> subs = s.listSubjects(1);
+          int points = 0;
+          for (String sub : subs) {
+            double total = 0.3 * s.latest(1, sub, Exam.CAT1) + 0.3 * s.latest(1, sub, Exam.CAT2)
+                + 0.4 * s.latest(1, sub, Exam.FAT);
+            points += total >= 90 ? 10 : total >= 80 ? 9 : total >= 70 ? 8 : total >= 60 ? 7 : total >= 50 ? 6 : total >= 40 ? 5 : 0;
+          }
+          sink += subs.isEmpty() ? 0 : (double) points / subs.size();
+        }
+        graph = Math.min(graph, System.nanoTime() - t0);
+      }
+
+      long before = usedMemory(true);
+      long t0 = System.nanoTime();
+      MarkStore store = inst.enableMarkStore();
+      long build = System.nanoTime() - t0;
+      long mem = usedMemory(false) - before;
+
+      long batch = Long.MAX_VALUE;
+      for (int r = 0; r < 5; r++) {
+        t0 = System.nanoTime();
+        sink += store.computeAllSGPA(1)[0];
+        batch = Math.min(batch, System.nanoTime() - t0);
+      }
+      if (Double.isNaN(sink))
+        System.out.println(sink);
+
+      out.write("ObjectGraphSGPA," + n + "," + graph + ",0\n");
+      out.write("MarkStoreBuild," + n + "," + build + "," + mem + "\n");
+      out.write("MarkStoreBatchSGPA," + n + "," + batch + "," + mem + "\n");
+    }
+  }
+
+  // ========== 13. Retained heap per student ==========
+  // Each student gets 8 semesters x 6 subjects with one mark per exam, which
+  // exercises the per-semester subject arrays and the per-exam mark stacks.
+  // TimeNanoseconds holds the build time, MemoryKB the bytes per student.
+  private static void benchmarkFootprint(FileWriter out) throws IOException {
+    String[] subjects = { "Mathematics", "Physics", "Chemistry", "Biology", "English", "History" };
+    for (int n = BULK_START / 10; n <= BULK_END / 10; n += BULK_STEP / 10) {
+      Student[] keep = new Student[n];
+      long before = usedMemory(true);
+      long t0 = System.nanoTime();
+      for (int i = 0; i < n; i++) {
+        Student s = new Student("21BCE" + i, "Student" + i);
+        for (int sem = 1; sem <= 8; sem++) {
+          for (int k = 0; k < subjects.length; k++) {
+            // Fresh strings, as a CSV load would produce
+            String sub = new String(subjects[k]);
+            s.addSubject(sem, sub);
+            s.pushMark(sem, sub, Exam.CAT1, 60 + (i + k) % 40);
+            s.pushMark(sem, sub, Exam.CAT2, 55 + (i + k) % 45);
+            s.pushMark(sem, sub, Exam.FAT, 50 + (i + k) % 50);
+          }
+          s.calculateSGPA(sem);
+        }
+        keep[i] = s;
+      }
+      long time = System.nanoTime() - t0;
+      long mem = usedMemory(true) - before;
+      out.write("StudentFootprint," + n + "," + time + "," + (mem / n) + "\n");
+      if (keep[n - 1] == null)
+        System.out.println();
+    }
+  }
+
+  // ========== 14. Cold-start load: CSV files vs binary snapshot ==========
+  // Each student has 2 semesters x 5 subjects with one mark per exam.
+  // Up to 100k students, one load each (a cold start loads once).
+  // MemoryKB holds the size on disk.
+  private static void benchmarkColdStart(FileWriter out) throws IOException {
+    String[] subjects = { "Mathematics", "Physics", "Chemistry", "English", "History" };
+    for (int n = BULK_START / 4; n <= BULK_START; n += BULK_START / 4) {
+      Institute inst = new Institute();
+      for (int i = 0; i < n; i++) {
+        Student s = new Student("21BCE" + i, "Student " + i);
+        inst.addStudent(s);
+        for (int sem = 1; sem <= 2; sem++) {
+          for (int k = 0; k < subjects.length; k++) {
+            s.pushMark(sem, subjects[k], Exam.CAT1, 60 + (i + k) % 40);
+            s.pushMark(sem, subjects[k], Exam.CAT2, 55 + (i * 7 + k) % 45);
+            s.pushMark(sem, subjects[k], Exam.FAT, 50 + (i * 13 + k) % 50);
+          }
+          if (sem == 1)
+            s.calculateSGPA(sem);
+        }
+        s.promoteOneSemester();
+      }
+
+      Path dir = Files.createTempDirectory("gms-bench");
+      String d = dir.toString();
+      PersistenceManager.saveCSV(inst, d);
+      PersistenceManager.saveBinary(inst, d);
+      inst = null;
+
+      long csvBytes = 0;
+      long binBytes = 0;
+      try (Stream<Path> files = Files.list(dir)) {
+        for (Path f : (Iterable<Path>) files::iterator) {
+          if (f.getFileName().toString().endsWith(".csv"))
+            csvBytes += Files.size(f);
+          else
+            binBytes += Files.size(f);
+        }
+      }
+
+      usedMemory(true);
+      long t0 = System.nanoTime();
+      PersistenceManager.loadCSV(new Institute(), d);
+      long csv = System.nanoTime() - t0;
+
+      usedMemory(true);
+      t0 = System.nanoTime();
+      PersistenceManager.loadBinary(new Institute(), d);
+      long bin = System.nanoTime() - t0;
+
+      PersistenceManager.deleteCSV(d);
+      PersistenceManager.deleteBinary(d);
+      Files.deleteIfExists(dir);
+
+      out.write("ColdStartCSV," + n + "," + csv + "," + (csvBytes / 1024) + "\n");
+      out.write("ColdStartBinary," + n + "," + bin + "," + (binBytes / 1024) + "\n");
+    }
+  }
+
+  // ========== 15. marks.csv import: line by line vs parallel byte-range chunks ==========
+  // Each student has 2 semesters x 5 subjects x 3 exams = 30 mark rows, so
+  // 50k and 100k students give 1.5M and 3M rows. Parallel uses every core.
+  // InputSize is the row count, MemoryKB the size of marks.csv.
+  private static void benchmarkMarksImport(FileWriter out) throws IOException {
+    String[] subjects = { "Mathematics", "Physics", "Chemistry", "English", "History" };
+    int cores = Runtime.getRuntime().availableProcessors();
+    for (int n = BULK_START / 2; n <= BULK_START; n += BULK_START / 2) {
+      Institute inst = new Institute();
+      for (int i = 0; i < n; i++) {
+        Student s = new Student("21BCE" + i, "Student " + i);
+        inst.addStudent(s);
+        for (int sem = 1; sem <= 2; sem++) {
+          for (int k = 0; k < subjects.length; k++) {
+            s.pushMark(sem, subjects[k], Exam.CAT1, 60 + (i + k) % 40);
+            s.pushMark(sem, subjects[k], Exam.CAT2, 55 + (i * 7 + k) % 45);
+            s.pushMark(sem, subjects[k], Exam.FAT, 50 + (i * 13 + k) % 50);
+          }
+        }
+        s.promoteOneSemester();
+      }
+
+      Path dir = Files.createTempDirectory("gms-bench");
+      String d = dir.toString();
+      PersistenceManager.saveCSV(inst, d);
+      Path marks = dir.resolve("marks.csv");
+      long kb = Files.size(marks) / 1024;
+      int rows = n * 2 * subjects.length * 3;
+
+      // Students and subjects only, as loadCSV has them when it reaches marks.csv
+      Institute[] targets = new Institute[3];
+      for (int t = 0; t < targets.length; t++) {
+        targets[t] = new Institute();
+        for (Student src : inst.getAllStudents()) {
+          Student s = new Student(src.id(), src.name());
+          targets[t].addStudent(s);
+          s.promoteOneSemester();
+          for (int sem = 1; sem <= 2; sem++) {
+            for (String sub : src.listSubjects(sem))
+              s.addSubject(sem, sub);
+          }
+        }
+      }
+      inst = null;
+
+      usedMemory(true);
+      long t0 = System.nanoTime();
+      loadMarksLineByLine(targets[0], marks.toString());
+      long lines = System.nanoTime() - t0;
+
+      usedMemory(true);
+      t0 = System.nanoTime();
+      MarksLoader.load(targets[1], marks, 1);
+      long chunked = System.nanoTime() - t0;
+
+      usedMemory(true);
+      t0 = System.nanoTime();
+      MarksLoader.load(targets[2], marks, cores);
+      long parallel = System.nanoTime() - t0;
+
+      PersistenceManager.deleteCSV(d);
+      Files.deleteIfExists(dir);
+
+      out.write("MarksImportLineByLine," + rows + "," + lines + "," + kb + "\n");
+      out.write("MarksImportChunkedSequential," + rows + "," + chunked + "," + kb + "\n");
+      out.write("MarksImportChunkedParallel," + rows + "," + parallel + "," + kb + "\n");
+    }
+  }
+
+  // The single-threaded readRow loop loadCSV used before MarksLoader
+  private static void loadMarksLineByLine(Institute inst, String path) throws IOException {
+    try (CSV.Reader r = new CSV.Reader(path)) {
+      r.readRow(); // header
+      List<String> row;
+      while ((row = r.readRow()) != null) {
+        if (row.size() < 5)
+          continue;
+        Iterator<String> it = row.iterator();
+        Student s = inst.getStudent(it.next());
+        if (s == null)
+          continue;
+        int sem = Integer.parseInt(it.next());
+        int sub = Subject.names().intern(it.next());
+        Exam ex = Exam.fromString(it.next());
+        for (String tok : it.next().split(";")) {
+          if (!tok.isEmpty())
+            s.pushMark(sem, sub, ex, Double.parseDouble(tok));
+        }
+      }
+    }
+  }
+
+  // ========== 16. Lookups from many threads while one thread adds students ==========
+  // Locked: a plain Institute behind one lock (its HashMap migrates buckets
+  // during get, so readers cannot share it unguarded). Concurrent: new
+  // Institute(true), whose ConcurrentHashMap takes no lock on get.
+  // InputSize is the starting student count; every reader does n lookups
+  // while the writer adds n / 10 students.
+  private static void benchmarkConcurrentInstitute(FileWriter out) throws IOException {
+    int readers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    for (int n = BULK_START; n <= BULK_END; n += BULK_STEP) {
+      for (boolean concurrent : new boolean[] { false, true }) {
+        Institute inst = new Institute(concurrent);
+        for (int i = 0; i < n; i++)
+          inst.addStudent(new Student("STU" + i, "Student" + i));
+        Object lock = concurrent ? null : new Object();
+
+        long before = usedMemory(true);
+        long time = concurrentLookups(inst, lock, n, readers);
+        long mem = usedMemory(false) - before;
+
+        String op = concurrent ? "ConcurrentInstituteLookups" : "LockedInstituteLookups";
+        out.write(op + "," + n + "," + time + "," + mem + "\n");
+      }
+    }
+  }
+
+  // Wall time of `readers` threads doing n lookups each while one thread adds
+  // n / 10 students, every access under `lock` unless it is null
+  private static long concurrentLookups(Institute inst, Object lock, int n, int readers) {
+    Thread[] threads = new Thread[readers + 1];
+    for (int t = 0; t < readers; t++) {
+      long seed = t;
+      threads[t] = new Thread(() -> {
+        Random rnd = new Random(seed);
+        for (int i = 0; i < n; i++) {
+          String id = "STU" + rnd.nextInt(n);
+          if (lock == null) {
+            inst.getStudent(id);
+          } else {
+            synchronized (lock) {
+              inst.getStudent(id);
+            }
+          }
+        }
+      });
+    }
+    threads[readers] = new Thread(() -> {
+      for (int i = n; i < n + n / 10; i++) {
+        Student s = new Student("STU" + i, "Student" + i);
+        if (lock == null) {
+          inst.addStudent(s);
+        } else {
+          synchronized (lock) {
+            inst.addStudent(s);
+          }
+        }
+      }
+    });
+
+    long start = System.nanoTime();
+    for (Thread t : threads)
+      t.start();
+    for (Thread t : threads) {
+      try {
+        t.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    return System.nanoTime() - start;
+  }
+
+  // ========== 17. HashMap GET with keys sharing one hashCode ==========
+  // "Aa" and "BB" hash alike, so every key below has the same String.hashCode().
+  // The overflow tree should keep lookups near O(log n) instead of O(n).
+  private static void benchmarkAdversarialGet(FileWriter out) throws IOException {
+    for (int n = START; n <= END; n += STEP) {
+      String[] keys = collidingKeys(n);
+      HashMap<String, Integer> map = new HashMap<>();
+      for (int i = 0; i < n; i++)
+        map.put(keys[i], i);
+
+      long total = 0;
+      long memBefore = usedMemory(true);
+      for (int r = 0; r < REPEAT; r++) {
+        String key = keys[(r * 31) % n];
+        long t0 = System.nanoTime();
+        map.get(key);
+        long t1 = System.nanoTime();
+        total += (t1 - t0);
+      }
+      long memAfter = usedMemory(false);
+
+      out.write("AdversarialGet," + n + "," + (total / REPEAT) + "," + (memAfter - memBefore) + "\n");
+    }
+  }
+
+  private static String[] collidingKeys(int n) {
+    int bits = 1;
+    while ((1 << bits) < n)
+      bits++;
+    String[] keys = new String[n];
+    for (int i = 0; i < n; i++) {
+      StringBuilder sb = new StringBuilder("21BCE");
+      for (int b = 0; b < bits; b++)
+        sb.append(((i >> b) & 1) == 0 ? "Aa" : "BB");
+      keys[i] = sb.toString();
+    }
+    return keys;
+  }
+
+  // ========== 18. Indexed get + iteration: DoublyLinkedList vs ArrayList ==========
+  private static void benchmarkListAccess(FileWriter out) throws IOException {
+    for (int n = START; n <= END; n += STEP) {
+      DoublyLinkedList<Integer> linked = new DoublyLinkedList<>();
+      ArrayList<Integer> array = new ArrayList<>();
+      for (int i = 0; i < n; i++) {
+        linked.add(i);
+        array.add(i);
+      }
+      benchmarkListAccess(out, "DoublyLinkedList", linked, n);
+      benchmarkListAccess(out, "ArrayList", array, n);
+    }
+  }
+
+  private static void benchmarkListAccess(FileWriter out, String name, List<Integer> list, int n)
+      throws IOException {
+    long sink = 0;
+    long total = 0;
+    for (int r = 0; r < REPEAT; r++) {
+      int idx = (int) ((r * 2654435761L) % n);
+      long t0 = System.nanoTime();
+      sink += list.get(idx);
+      long t1 = System.nanoTime();
+      total += (t1 - t0);
+    }
+    out.write(name + "Get," + n + "," + (total / REPEAT) + ",0\n");
+
+    long t0 = System.nanoTime();
+    for (int r = 0; r < 10; r++) {
+      for (int v : list)
+        sink += v;
+    }
+    long t1 = System.nanoTime();
+    out.write(name + "Iterate," + n + "," + ((t1 - t0) / 10) + ",0\n");
+
+    if (sink == 42)
+      System.out.print(""); // keep the loops from being optimised away
+  }
+
   private static long usedMemory(boolean runGC) {
     Runtime r = Runtime.getRuntime();
     if (runGC)
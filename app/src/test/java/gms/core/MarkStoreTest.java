@@ -0,0 +1,79 @@
+package gms.core;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import org.junit.Test;
+
+// The columnar store must agree with the object graph (Student.liveSGPA)
+// through every kind of change, including ones made before it was enabled
+public class MarkStoreTest {
+  private static final String[] SUBJECTS = { "A", "B", "C", "D", "E" };
+
+  private static void assertMatchesStudents(Institute inst) {
+    MarkStore store = inst.markStore();
+    for (int sem = 1; sem <= 3; sem++) {
+      int s = sem;
+      int[] seen = { 0 };
+      store.forEachSGPA(sem, (st, v) -> {
+        seen[0]++;
+        assertEquals(st.id(), st.liveSGPA(s), v, 0.0);
+      });
+      assertEquals(inst.size(), seen[0]);
+      int rows = 0;
+      for (Student st : inst.getAllStudents())
+        rows += st.listSubjects(sem).size();
+      assertEquals(rows, store.rows(sem));
+    }
+  }
+
+  @Test
+  public void matchesStudentsUnderRandomChanges() {
+    Random r = new Random(21);
+    Institute inst = new Institute();
+    for (int i = 0; i < 100; i++)
+      inst.addStudent(new Student("S" + i, "n"));
+    for (int step = 0; step < 60000; step++) {
+      if (step == 10000)
+        inst.enableMarkStore();
+      String id = "S" + r.nextInt(150);
+      Student s = inst.getStudent(id);
+      int op = r.nextInt(20);
+      if (s == null) {
+        if (op < 5)
+          inst.addStudent(new Student(id, "n"));
+        continue;
+      }
+      int sem = 1 + r.nextInt(3);
+      String sub = SUBJECTS[r.nextInt(SUBJECTS.length)];
+      Exam ex = Exam.values()[r.nextInt(3)];
+      if (op < 8)
+        s.pushMark(sem, sub, ex, r.nextInt(101));
+      else if (op < 11)
+        s.rollbackMark(sem, sub, ex);
+      else if (op < 14)
+        s.addSubject(sem, sub);
+      else if (op < 16)
+        s.removeSubject(sem, sub);
+      else if (op < 17)
+        inst.removeStudent(id);
+      if (step % 2000 == 0 && inst.markStore() != null)
+        assertMatchesStudents(inst);
+    }
+    assertMatchesStudents(inst);
+  }
+
+  @Test
+  public void subjectIdsAreSymbolTableIds() {
+    Institute inst = new Institute();
+    Student s = new Student("S1", "n");
+    inst.addStudent(s);
+    s.pushMark(1, "Mathematics", Exam.CAT1, 90);
+    MarkStore store = inst.enableMarkStore();
+    int id = Subject.names().id("Mathematics");
+    assertEquals("Mathematics", store.subjectName(id));
+    assertEquals(1, store.rows(1));
+    assertEquals(0, store.rows(2));
+    assertSame(s, store.student(0));
+  }
+}
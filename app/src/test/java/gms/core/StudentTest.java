@@ -0,0 +1,117 @@
+package gms.core;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+
+public class StudentTest {
+  private static final String[] SUBJECTS = { "Maths", "Physics", "Art", "Chemistry", "Biology", "Zoology" };
+
+  // Per-semester subjects and mark histories checked against sorted java.util maps
+  @Test
+  public void subjectsAndMarksMatchReference() {
+    Random r = new Random(1);
+    Student s = new Student("S1", "n");
+    List<TreeMap<String, Map<Exam, List<Double>>>> ref = new java.util.ArrayList<>();
+    for (int sem = 0; sem < 4; sem++)
+      ref.add(new TreeMap<>());
+
+    for (int step = 0; step < 20000; step++) {
+      int sem = 1 + r.nextInt(4);
+      String sub = SUBJECTS[r.nextInt(SUBJECTS.length)];
+      Exam ex = Exam.values()[r.nextInt(3)];
+      TreeMap<String, Map<Exam, List<Double>>> subs = ref.get(sem - 1);
+      int op = r.nextInt(10);
+      if (op < 2) {
+        assertEquals(!subs.containsKey(sub), s.addSubject(sem, sub));
+        subs.computeIfAbsent(sub, k -> new java.util.EnumMap<>(Exam.class));
+      } else if (op < 3) {
+        assertEquals(subs.remove(sub) != null, s.removeSubject(sem, sub));
+      } else if (op < 7) {
+        double mark = r.nextInt(101);
+        // Alternate the name and id overloads
+        if (r.nextBoolean())
+          s.pushMark(sem, sub, ex, mark);
+        else
+          s.pushMark(sem, Subject.names().intern(sub), ex, mark);
+        subs.computeIfAbsent(sub, k -> new java.util.EnumMap<>(Exam.class))
+            .computeIfAbsent(ex, k -> new java.util.ArrayList<>()).add(mark);
+      } else if (op < 8) {
+        List<Double> marks = subs.containsKey(sub) ? subs.get(sub).get(ex) : null;
+        boolean rolled = marks != null && marks.size() > 1;
+        if (rolled)
+          marks.remove(marks.size() - 1);
+        assertEquals(rolled, s.rollbackMark(sem, sub, ex));
+      } else {
+        Map<Exam, List<Double>> exams = subs.get(sub);
+        List<Double> marks = exams == null ? null : exams.get(ex);
+        assertEquals(exams != null, s.hasSubject(sem, sub));
+        assertEquals(marks == null ? java.util.Collections.emptyList() : marks,
+            new java.util.ArrayList<>(s.marksHistory(sem, sub, ex)));
+        assertEquals(marks == null ? 0.0 : marks.get(marks.size() - 1), s.latest(sem, sub, ex), 0.0);
+      }
+      assertEquals(new java.util.ArrayList<>(subs.keySet()), new java.util.ArrayList<>(s.listSubjects(sem)));
+    }
+    assertFalse(s.hasSubject(1, "Never interned"));
+    assertFalse(s.removeSubject(1, "Never interned either"));
+    assertTrue(s.listSubjects(9).isEmpty());
+  }
+
+  // The CGPA is the mean of the recorded SGPAs, with the same bits however
+  // many times they were updated
+  @Test
+  public void cgpaDoesNotDriftFromTheRecordedSGPAs() {
+    Random r = new Random(7);
+    for (int t = 0; t < 200; t++) {
+      Student s = new Student("S" + t, "n");
+      for (int sem = 1; sem <= 8; sem++) {
+        for (int k = 0; k < 6; k++)
+          s.pushMark(sem, SUBJECTS[k], Exam.CAT1, r.nextInt(101));
+        s.calculateSGPA(sem);
+        s.promoteOneSemester();
+      }
+      // Revaluations keep finalized SGPAs, and so the CGPA, current
+      for (int k = 0; k < 300; k++)
+        s.pushMark(1 + r.nextInt(8), SUBJECTS[r.nextInt(6)], Exam.FAT, r.nextInt(101) + r.nextDouble());
+
+      Student fresh = new Student("F", "n");
+      for (int sem = 8; sem >= 1; sem--)
+        fresh.setSGPA(sem, s.getSGPA(sem));
+      double sum = 0;
+      for (int sem = 1; sem <= 8; sem++) {
+        assertEquals(s.liveSGPA(sem), s.getSGPA(sem), 0.0);
+        sum += s.getSGPA(sem);
+      }
+      assertEquals(sum / 8, s.getCGPA(), 0.0);
+      assertEquals(s.getCGPA(), fresh.cgpaFromSGPA(), 0.0);
+    }
+
+    // Semesters far apart take the sorted path and still give the mean
+    Student sparse = new Student("P", "n");
+    sparse.setSGPA(100000, 6.0);
+    sparse.setSGPA(1, 8.5);
+    sparse.setSGPA(-3, 7.0);
+    assertEquals((7.0 + 8.5 + 6.0) / 3, sparse.cgpaFromSGPA(), 0.0);
+  }
+
+  // What the promotion workers compute off to the side matches recording it
+  @Test
+  public void cgpaWithMatchesRecordingTheSGPA() {
+    Random r = new Random(8);
+    for (int t = 0; t < 500; t++) {
+      Student s = new Student("S" + t, "n");
+      int recorded = r.nextInt(8);
+      for (int k = 0; k < recorded; k++)
+        s.setSGPA(r.nextInt(3) == 0 ? 1 + r.nextInt(100000) : 1 + r.nextInt(8), r.nextInt(1001) / 100.0);
+      int sem = 1 + r.nextInt(9);
+      double v = r.nextInt(1001) / 100.0;
+      double side = s.cgpaWith(sem, v);
+      s.storeSGPA(sem, v);
+      assertEquals(s.cgpaFromSGPA(), side, 0.0);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package gms.dsa;
+
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class ArrayListTest {
+  @Test
+  public void matchesJavaUtil() {
+    Random r = new Random(1);
+    ArrayList<Integer> list = new ArrayList<>(0);
+    List<Integer> ref = new java.util.ArrayList<>();
+    for (int i = 0; i < 20000; i++) {
+      int op = r.nextInt(10);
+      Integer v = r.nextInt(50);
+      if (op < 4 || ref.isEmpty()) {
+        assertEquals(ref.add(v), list.add(v));
+      } else if (op < 5) {
+        int at = r.nextInt(ref.size() + 1);
+        ref.add(at, v);
+        list.add(at, v);
+      } else if (op < 6) {
+        int at = r.nextInt(ref.size());
+        assertEquals(ref.remove(at), list.remove(at));
+      } else if (op < 7) {
+        assertEquals(ref.remove(v), list.remove(v));
+      } else if (op < 8) {
+        int at = r.nextInt(ref.size());
+        assertEquals(ref.set(at, v), list.set(at, v));
+      } else {
+        assertEquals(ref.indexOf(v), list.indexOf(v));
+        assertEquals(ref.lastIndexOf(v), list.lastIndexOf(v));
+        assertEquals(ref.contains(v), list.contains(v));
+      }
+      assertEquals(ref.size(), list.size());
+    }
+    assertArrayEquals(ref.toArray(), list.toArray());
+    assertArrayEquals(ref.toArray(new Integer[0]), list.toArray(new Integer[0]));
+  }
+
+  @Test
+  public void iteratorRemove() {
+    ArrayList<Integer> list = new ArrayList<>();
+    List<Integer> ref = new java.util.ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      list.add(i);
+      ref.add(i);
+    }
+    Iterator<Integer> it = list.iterator();
+    Iterator<Integer> refIt = ref.iterator();
+    while (refIt.hasNext()) {
+      assertTrue(it.hasNext());
+      Integer v = it.next();
+      assertEquals(refIt.next(), v);
+      if (v % 3 != 0) {
+        it.remove();
+        refIt.remove();
+      }
+    }
+    assertFalse(it.hasNext());
+    assertArrayEquals(ref.toArray(), list.toArray());
+  }
+
+  @Test
+  public void addAllAndCopyConstructor() {
+    List<String> src = java.util.Arrays.asList("a", "b", "c");
+    ArrayList<String> list = new ArrayList<>(src);
+    assertTrue(list.addAll(src));
+    assertFalse(list.addAll(new java.util.ArrayList<>()));
+    assertArrayEquals(new Object[] { "a", "b", "c", "a", "b", "c" }, list.toArray());
+    assertTrue(list.containsAll(src));
+    list.clear();
+    assertTrue(list.isEmpty());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void getOutOfRangeThrows() {
+    ArrayList<Integer> list = new ArrayList<>();
+    list.add(1);
+    list.get(1);
+  }
+}
@@ -0,0 +1,59 @@
+package gms.dsa;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class BoundedHeapTest {
+  @Test
+  public void keepsTheFirstKUnderTheComparator() {
+    Random r = new Random(1);
+    for (int k : new int[] { 1, 2, 10, 100, 5000 }) {
+      for (Comparator<Integer> comp : java.util.Arrays.<Comparator<Integer>>asList(
+          Comparator.naturalOrder(), Comparator.reverseOrder())) {
+        List<Integer> values = new java.util.ArrayList<>();
+        for (int i = 0; i < 2000; i++)
+          values.add(i);
+        Collections.shuffle(values, r);
+
+        BoundedHeap<Integer> heap = new BoundedHeap<>(k, comp);
+        for (Integer v : values)
+          heap.offer(v);
+        List<Integer> want = new java.util.ArrayList<>(values);
+        want.sort(comp);
+        want = want.subList(0, Math.min(k, want.size()));
+
+        assertEquals(want.size(), heap.size());
+        assertEquals(want.get(want.size() - 1), heap.peekWorst());
+        assertArrayEquals(want.toArray(), heap.drainSorted().toArray());
+        assertTrue(heap.isEmpty());
+      }
+    }
+  }
+
+  @Test
+  public void offerReportsWhetherTheValueWasKept() {
+    BoundedHeap<Integer> heap = new BoundedHeap<>(2, Comparator.naturalOrder());
+    assertTrue(heap.offer(5));
+    assertTrue(heap.offer(3));
+    assertFalse(heap.offer(9));
+    assertTrue(heap.offer(1));
+    assertEquals(Integer.valueOf(3), heap.peekWorst());
+  }
+
+  @Test
+  public void zeroCapacityKeepsNothing() {
+    BoundedHeap<Integer> heap = new BoundedHeap<>(0, Comparator.naturalOrder());
+    assertFalse(heap.offer(1));
+    assertTrue(heap.isEmpty());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void peekWorstOnEmptyThrows() {
+    new BoundedHeap<Integer>(3, Comparator.naturalOrder()).peekWorst();
+  }
+}
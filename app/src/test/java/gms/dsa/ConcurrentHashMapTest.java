@@ -0,0 +1,100 @@
+package gms.dsa;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class ConcurrentHashMapTest {
+  @Test
+  public void matchesJavaUtilOnOneThread() {
+    Random r = new Random(1);
+    for (int stripes : new int[] { 1, 4, 16 }) {
+      ConcurrentHashMap<String, Integer> map = new ConcurrentHashMap<>(stripes);
+      Map<String, Integer> ref = new java.util.HashMap<>();
+      for (int i = 0; i < 30000; i++) {
+        String k = "k" + r.nextInt(2000);
+        int op = r.nextInt(10);
+        if (op < 4)
+          assertEquals(ref.put(k, i), map.put(k, i));
+        else if (op < 5)
+          assertEquals(ref.putIfAbsent(k, i), map.putIfAbsent(k, i));
+        else if (op < 7)
+          assertEquals(ref.remove(k), map.remove(k));
+        else
+          assertEquals(ref.get(k), map.get(k));
+        assertEquals(ref.size(), map.size());
+      }
+      assertEquals(ref, new java.util.HashMap<>(map));
+      map.clear();
+      assertTrue(map.isEmpty());
+    }
+  }
+
+  @Test
+  public void putIfAbsentHasOneWinnerPerKey() throws InterruptedException {
+    ConcurrentHashMap<Integer, Integer> map = new ConcurrentHashMap<>();
+    AtomicInteger wins = new AtomicInteger();
+    int keys = 20000;
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      int id = t;
+      threads[t] = new Thread(() -> {
+        for (int k = 0; k < keys; k++) {
+          if (map.putIfAbsent(k, id) == null)
+            wins.incrementAndGet();
+        }
+      });
+    }
+    for (Thread t : threads)
+      t.start();
+    for (Thread t : threads)
+      t.join();
+    assertEquals(keys, wins.get());
+    assertEquals(keys, map.size());
+  }
+
+  @Test
+  public void readersSeeEveryEntryPresentThroughout() throws InterruptedException {
+    ConcurrentHashMap<Integer, Integer> map = new ConcurrentHashMap<>(4);
+    for (int k = 0; k < 1000; k++)
+      map.put(k, k);
+    // A writer adds and removes keys above 1000 (forcing resizes) while a
+    // reader checks the stable keys are always found, by get and by forEach
+    Thread writer = new Thread(() -> {
+      for (int round = 0; round < 20; round++) {
+        for (int k = 1000; k < 20000; k++)
+          map.put(k, k);
+        for (int k = 1000; k < 20000; k++)
+          map.remove(k);
+      }
+    });
+    AtomicInteger misses = new AtomicInteger();
+    Thread reader = new Thread(() -> {
+      while (writer.isAlive()) {
+        for (int k = 0; k < 1000; k++) {
+          Integer v = map.get(k);
+          if (v == null || v != k)
+            misses.incrementAndGet();
+        }
+        boolean[] seen = new boolean[1000];
+        map.forEach((k, v) -> {
+          if (k < 1000)
+            seen[k] = true;
+        });
+        for (boolean s : seen) {
+          if (!s)
+            misses.incrementAndGet();
+        }
+      }
+    });
+    writer.start();
+    reader.start();
+    writer.join();
+    reader.join();
+    assertEquals(0, misses.get());
+    assertEquals(1000, map.size());
+  }
+}
@@ -0,0 +1,63 @@
+package gms.dsa;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Random;
+import org.junit.Test;
+
+public class DoubleStackTest {
+  @Test
+  public void matchesArrayDeque() {
+    Random r = new Random(1);
+    DoubleStack stack = new DoubleStack();
+    Deque<Double> ref = new ArrayDeque<>();
+    for (int i = 0; i < 20000; i++) {
+      int op = r.nextInt(10);
+      if (op < 5) {
+        double v = r.nextDouble();
+        stack.push(v);
+        ref.push(v);
+      } else if (op < 6) {
+        int len = r.nextInt(20);
+        double[] src = new double[len + 4];
+        for (int k = 0; k < src.length; k++)
+          src[k] = r.nextDouble();
+        stack.pushAll(src, 2, len);
+        for (int k = 2; k < 2 + len; k++)
+          ref.push(src[k]);
+      } else if (op < 8) {
+        assertEquals(ref.poll() != null, stack.pop());
+      } else if (!ref.isEmpty()) {
+        assertEquals(ref.peek(), stack.peek(), 0.0);
+        assertEquals(ref.peekLast(), stack.get(0), 0.0);
+      }
+      assertEquals(ref.size(), stack.size());
+      assertEquals(ref.isEmpty(), stack.isEmpty());
+    }
+
+    Iterator<Double> newest = ref.iterator();
+    stack.forEachNewestFirst(v -> assertEquals(newest.next(), v, 0.0));
+    assertFalse(newest.hasNext());
+    Iterator<Double> oldest = ref.descendingIterator();
+    stack.forEachOldestFirst(v -> assertEquals(oldest.next(), v, 0.0));
+    assertFalse(oldest.hasNext());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void peekOnEmptyThrows() {
+    new DoubleStack().peek();
+  }
+
+  @Test
+  public void pushAllOnEmptyStack() {
+    DoubleStack stack = new DoubleStack();
+    stack.pushAll(new double[0], 0, 0);
+    assertTrue(stack.isEmpty());
+    stack.pushAll(new double[] { 1, 2, 3 }, 0, 3);
+    assertEquals(3, stack.size());
+    assertEquals(3.0, stack.peek(), 0.0);
+  }
+}
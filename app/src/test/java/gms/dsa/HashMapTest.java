@@ -0,0 +1,182 @@
+package gms.dsa;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+// Random operation sequences checked step by step against java.util.HashMap
+public class HashMapTest {
+  // Keys built from "Aa"/"BB" blocks all share one String.hashCode()
+  static String colliding(int x) {
+    StringBuilder b = new StringBuilder();
+    for (int i = 0; i < 12; i++)
+      b.append(((x >> i) & 1) == 0 ? "Aa" : "BB");
+    return b.toString();
+  }
+
+  // Not Comparable, so colliding instances can never go to the overflow tree
+  static final class Clash {
+    final int v;
+
+    Clash(int v) {
+      this.v = v;
+    }
+
+    @Override
+    public int hashCode() {
+      return v % 3;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Clash && ((Clash) o).v == v;
+    }
+  }
+
+  private interface Keys {
+    Object key(int k);
+  }
+
+  private static void randomOps(Map<Object, Integer> map, Keys keys, long seed, int range) {
+    Map<Object, Integer> ref = new java.util.HashMap<>();
+    Random r = new Random(seed);
+    for (int i = 0; i < 20000; i++) {
+      Object k = r.nextInt(50) == 0 ? null : keys.key(r.nextInt(range));
+      int op = r.nextInt(10);
+      if (op < 5)
+        assertEquals(ref.put(k, i), map.put(k, i));
+      else if (op < 7)
+        assertEquals(ref.remove(k), map.remove(k));
+      else if (op < 9)
+        assertEquals(ref.get(k), map.get(k));
+      else
+        assertEquals(ref.containsKey(k), map.containsKey(k));
+      assertEquals(ref.size(), map.size());
+    }
+    assertEquals(ref, new java.util.HashMap<>(map));
+    int entries = 0;
+    for (Map.Entry<Object, Integer> e : map.entrySet()) {
+      assertEquals(ref.get(e.getKey()), e.getValue());
+      entries++;
+    }
+    assertEquals(ref.size(), entries);
+  }
+
+  // Removes a random half of the keys through the keySet iterator, then the
+  // rest through the values iterator
+  private static void iteratorRemove(HashMap<Object, Integer> map, Keys keys) {
+    Random r = new Random(5);
+    Map<Object, Integer> ref = new java.util.HashMap<>();
+    for (int i = 0; i < 3000; i++) {
+      Object k = keys.key(i);
+      map.put(k, i);
+      ref.put(k, i);
+    }
+    Set<Object> seen = new HashSet<>();
+    Iterator<Object> it = map.keySet().iterator();
+    while (it.hasNext()) {
+      Object k = it.next();
+      assertTrue("visited twice: " + k, seen.add(k));
+      if (r.nextBoolean()) {
+        it.remove();
+        ref.remove(k);
+      }
+    }
+    assertEquals(3000, seen.size());
+    assertEquals(ref.keySet(), new HashSet<>(map.keySet()));
+
+    Iterator<Integer> values = map.values().iterator();
+    while (values.hasNext()) {
+      values.next();
+      values.remove();
+    }
+    assertTrue(map.isEmpty());
+  }
+
+  @Test
+  public void matchesJavaUtil() {
+    for (int round = 0; round < 6; round++)
+      randomOps(new HashMap<>(4), k -> "k" + k, round, 10 + round * 400);
+  }
+
+  @Test
+  public void iteratorRemoveVisitsEveryKeyOnce() {
+    iteratorRemove(new HashMap<>(4), k -> "k" + k);
+  }
+
+  @Test
+  public void entrySetValueWritesThrough() {
+    HashMap<String, Integer> map = new HashMap<>();
+    for (int i = 0; i < 100; i++)
+      map.put("k" + i, i);
+    for (Map.Entry<String, Integer> e : map.entrySet())
+      e.setValue(e.getValue() * 2);
+    for (int i = 0; i < 100; i++)
+      assertEquals(Integer.valueOf(i * 2), map.get("k" + i));
+  }
+
+  @Test
+  public void matchesJavaUtilWithIncrementalResize() {
+    for (int round = 0; round < 6; round++)
+      randomOps(new HashMap<>(4, true), k -> "k" + k, round, 10 + round * 400);
+  }
+
+  @Test
+  public void iteratorRemoveDuringIncrementalResize() {
+    iteratorRemove(new HashMap<>(4, true), k -> "k" + k);
+  }
+
+  @Test
+  public void collidingComparableKeysUseTheOverflowTree() {
+    randomOps(new HashMap<>(4), HashMapTest::colliding, 1, 2000);
+    randomOps(new HashMap<>(4, true), HashMapTest::colliding, 2, 2000);
+  }
+
+  @Test
+  public void collidingKeysThatAreNotComparable() {
+    randomOps(new HashMap<>(4), Clash::new, 3, 500);
+    randomOps(new HashMap<>(4, true), Clash::new, 4, 500);
+  }
+
+  @Test
+  public void iteratorRemoveOverTheOverflowTree() {
+    iteratorRemove(new HashMap<>(4), k -> k % 2 == 0 ? "k" + k : colliding(k));
+    iteratorRemove(new HashMap<>(4, true), k -> k % 2 == 0 ? "k" + k : colliding(k));
+  }
+
+  @Test
+  public void treeBinMatchesSortedReference() {
+    TreeBin bin = new TreeBin();
+    java.util.TreeMap<String, Integer> ref = new java.util.TreeMap<>();
+    Random r = new Random(6);
+    // Equal hashes, so the tree orders by compareTo alone
+    for (int i = 0; i < 20000; i++) {
+      String k = "k" + r.nextInt(1000);
+      if (r.nextInt(3) > 0) {
+        if (bin.find(k, 7) == null) {
+          bin.insert(k, i, 7);
+          ref.put(k, i);
+        }
+      } else {
+        assertEquals(ref.remove(k) != null, bin.remove(k, 7));
+      }
+      assertEquals(ref.size(), bin.size());
+    }
+    for (String k : ref.keySet())
+      assertEquals(ref.get(k), bin.find(k, 7).val);
+    // higher() walks the keys in order
+    TreeBin.Node n = bin.higher(null, 0);
+    for (String k : ref.keySet()) {
+      assertNotNull(n);
+      assertEquals(k, n.key);
+      n = bin.higher(n.key, n.hash);
+    }
+    assertNull(n);
+    assertNull(bin.find("absent", 7));
+  }
+}
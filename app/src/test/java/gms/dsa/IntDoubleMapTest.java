@@ -0,0 +1,52 @@
+package gms.dsa;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+public class IntDoubleMapTest {
+  @Test
+  public void matchesJavaUtil() {
+    Random r = new Random(1);
+    for (int range : new int[] { 8, 100, 5000 }) {
+      IntDoubleMap map = new IntDoubleMap();
+      Map<Integer, Double> ref = new java.util.HashMap<>();
+      for (int i = 0; i < 50000; i++) {
+        int k = r.nextInt(range) - range / 4;
+        int op = r.nextInt(10);
+        if (op < 5) {
+          double v = r.nextDouble();
+          Double old = ref.put(k, v);
+          double got = map.put(k, v);
+          if (old == null)
+            assertTrue(Double.isNaN(got));
+          else
+            assertEquals(old, got, 0.0);
+        } else if (op < 7) {
+          assertEquals(ref.remove(k) != null, map.remove(k));
+        } else {
+          assertEquals(ref.containsKey(k), map.containsKey(k));
+          assertEquals(ref.getOrDefault(k, -1.0), map.get(k, -1.0), 0.0);
+        }
+        assertEquals(ref.size(), map.size());
+      }
+      Map<Integer, Double> seen = new java.util.HashMap<>();
+      map.forEach((k, v) -> assertNull(seen.put(k, v)));
+      assertEquals(ref, seen);
+      map.clear();
+      assertTrue(map.isEmpty());
+      assertFalse(map.containsKey(0));
+    }
+  }
+
+  @Test
+  public void sumAddsEveryValue() {
+    IntDoubleMap map = new IntDoubleMap(2);
+    for (int sem = 1; sem <= 8; sem++)
+      map.put(sem, sem * 0.5);
+    map.remove(3);
+    assertEquals(18.0 - 1.5, map.sum(), 1e-12);
+  }
+}
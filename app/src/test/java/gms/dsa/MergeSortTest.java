@@ -0,0 +1,123 @@
+package gms.dsa;
+
+import static org.junit.Assert.*;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+// Every sort must give exactly the order of the (stable) java.util sort
+public class MergeSortTest {
+  // A sort key plus the input position, so stability is observable
+  static final class Item {
+    final int key;
+    final int pos;
+
+    Item(int key, int pos) {
+      this.key = key;
+      this.pos = pos;
+    }
+
+    @Override
+    public String toString() {
+      return key + "@" + pos;
+    }
+  }
+
+  private static final Comparator<Item> BY_KEY = (a, b) -> Integer.compare(a.key, b.key);
+
+  // Random, sorted, reversed, few distinct keys and sawtooth inputs of size n
+  private static List<List<Item>> inputs(int n, long seed) {
+    Random r = new Random(seed);
+    List<List<Item>> all = new java.util.ArrayList<>();
+    for (int shape = 0; shape < 5; shape++) {
+      List<Item> in = new java.util.ArrayList<>(n);
+      for (int i = 0; i < n; i++) {
+        int key;
+        switch (shape) {
+          case 0:
+            key = r.nextInt();
+            break;
+          case 1:
+            key = i / 3;
+            break;
+          case 2:
+            key = n - i / 3;
+            break;
+          case 3:
+            key = r.nextInt(4);
+            break;
+          default:
+            key = i % 100 + (r.nextInt(20) == 0 ? r.nextInt(1000) : 0);
+        }
+        in.add(new Item(key, i));
+      }
+      all.add(in);
+    }
+    return all;
+  }
+
+  private static List<Item> expected(List<Item> in) {
+    List<Item> ref = new java.util.ArrayList<>(in);
+    ref.sort(BY_KEY);
+    return ref;
+  }
+
+  // Checks the order forwards, and the prev links and tail backwards
+  private static void assertSorted(List<Item> want, DoublyLinkedList<Item> list) {
+    DoublyLinkedList.Node<Item> n = list.head;
+    for (Item w : want) {
+      assertNotNull(n);
+      assertSame(w, n.data);
+      n = n.next;
+    }
+    assertNull(n);
+    n = list.tail;
+    for (int i = want.size() - 1; i >= 0; i--) {
+      assertSame(want.get(i), n.data);
+      n = n.prev;
+    }
+    assertNull(n);
+    assertEquals(want.size(), list.size());
+  }
+
+  @Test
+  public void linkedListSorts() {
+    for (int n : new int[] { 0, 1, 2, 3, 17, 1000, 10007 }) {
+      for (List<Item> in : inputs(n, n)) {
+        List<Item> want = expected(in);
+
+        DoublyLinkedList<Item> classic = new DoublyLinkedList<>(in);
+        MergeSort.sort(classic, BY_KEY);
+        assertSorted(want, classic);
+
+        DoublyLinkedList<Item> adaptive = new DoublyLinkedList<>(in);
+        MergeSort.adaptiveSort(adaptive, BY_KEY);
+        assertSorted(want, adaptive);
+      }
+    }
+  }
+
+  @Test
+  public void parallelSortMatchesSequential() {
+    for (int parallelism : new int[] { 1, 2, 4 }) {
+      for (List<Item> in : inputs(60000, parallelism)) {
+        DoublyLinkedList<Item> list = new DoublyLinkedList<>(in);
+        MergeSort.parallelSort(list, BY_KEY, parallelism);
+        assertSorted(expected(in), list);
+      }
+    }
+  }
+
+  @Test
+  public void arrayListSorts() {
+    for (int n : new int[] { 0, 1, 2, 33, 1000, 10007 }) {
+      for (List<Item> in : inputs(n, n + 1)) {
+        ArrayList<Item> list = new ArrayList<>(in);
+        MergeSort.sort(list, BY_KEY);
+        assertArrayEquals(expected(in).toArray(), list.toArray());
+      }
+    }
+  }
+}
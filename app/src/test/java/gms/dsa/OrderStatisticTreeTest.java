@@ -0,0 +1,91 @@
+package gms.dsa;
+
+import static org.junit.Assert.*;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.Test;
+
+public class OrderStatisticTreeTest {
+  private static List<Integer> inOrder(OrderStatisticTree<Integer> tree) {
+    List<Integer> out = new java.util.ArrayList<>();
+    tree.forEach(out::add);
+    return out;
+  }
+
+  @Test
+  public void matchesTreeSet() {
+    Random r = new Random(1);
+    OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+    TreeSet<Integer> ref = new TreeSet<>();
+    for (int i = 0; i < 30000; i++) {
+      Integer v = r.nextInt(3000);
+      int op = r.nextInt(10);
+      if (op < 5)
+        assertEquals(ref.add(v), tree.add(v));
+      else if (op < 8)
+        assertEquals(ref.remove(v), tree.remove(v));
+      else
+        assertEquals(ref.contains(v), tree.contains(v));
+      assertEquals(ref.size(), tree.size());
+
+      if (i % 500 == 0) {
+        List<Integer> sorted = new java.util.ArrayList<>(ref);
+        assertEquals(sorted, inOrder(tree));
+        for (int k = 0; k < sorted.size(); k += 7) {
+          assertEquals(sorted.get(k), tree.select(k));
+          assertEquals(k, tree.rank(sorted.get(k)));
+        }
+        // rank of an absent value is the number of smaller elements
+        assertEquals(ref.headSet(v, false).size(), tree.rank(v));
+      }
+    }
+  }
+
+  @Test
+  public void forEachInRangeVisitsTheIndexRange() {
+    OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.reverseOrder());
+    List<Integer> want = new java.util.ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      tree.add(i);
+      want.add(999 - i);
+    }
+    Random r = new Random(2);
+    for (int i = 0; i < 200; i++) {
+      int from = r.nextInt(1100) - 50;
+      int to = r.nextInt(1100) - 50;
+      List<Integer> got = new java.util.ArrayList<>();
+      tree.forEachInRange(from, to, got::add);
+      int lo = Math.max(from, 0), hi = Math.min(to, 1000);
+      assertEquals(lo < hi ? want.subList(lo, hi) : java.util.Collections.emptyList(), got);
+    }
+  }
+
+  @Test
+  public void buildFromGivesABalancedEquivalentTree() {
+    for (int n : new int[] { 0, 1, 2, 3, 100, 1023, 1024 }) {
+      List<Integer> sorted = new java.util.ArrayList<>();
+      for (int i = 0; i < n; i++)
+        sorted.add(i * 2);
+      OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+      tree.add(-5);
+      tree.buildFrom(sorted);
+      assertEquals(sorted, inOrder(tree));
+      assertEquals(n, tree.size());
+      // still a working AVL tree afterwards
+      for (int i = 0; i < n; i++)
+        assertTrue(tree.add(i * 2 + 1));
+      for (int i = 0; i < 2 * n; i++)
+        assertEquals(Integer.valueOf(i), tree.select(i));
+    }
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void selectOutOfRangeThrows() {
+    OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+    tree.add(1);
+    tree.select(1);
+  }
+}
@@ -0,0 +1,69 @@
+package gms.dsa;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.Test;
+
+public class SymbolTableTest {
+  @Test
+  public void assignsDenseIdsInFirstSeenOrder() {
+    SymbolTable table = new SymbolTable();
+    Map<String, Integer> ref = new java.util.HashMap<>();
+    Random r = new Random(1);
+    for (int i = 0; i < 20000; i++) {
+      String name = "name" + r.nextInt(500);
+      assertEquals(ref.containsKey(name) ? ref.get(name) : -1, table.id(name));
+      int id = table.intern(name);
+      ref.putIfAbsent(name, ref.size());
+      assertEquals((int) ref.get(name), id);
+      assertEquals(name, table.name(id));
+      assertEquals(ref.size(), table.size());
+    }
+  }
+
+  @Test
+  public void canonicalReturnsOneSharedInstance() {
+    SymbolTable table = new SymbolTable();
+    String first = new String("Mathematics");
+    String second = new String("Mathematics");
+    assertSame(first, table.canonical(first));
+    assertSame(first, table.canonical(second));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void unknownIdThrows() {
+    SymbolTable table = new SymbolTable();
+    table.intern("a");
+    table.name(1);
+  }
+
+  @Test
+  public void concurrentInternAgreesOnIds() throws InterruptedException {
+    SymbolTable table = new SymbolTable();
+    Map<String, Integer> seen = new ConcurrentHashMap<>();
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      long seed = t;
+      threads[t] = new Thread(() -> {
+        Random r = new Random(seed);
+        for (int i = 0; i < 20000; i++) {
+          String name = "s" + r.nextInt(2000);
+          int id = table.intern(name);
+          Integer other = seen.putIfAbsent(name, id);
+          if (other != null && other != id)
+            throw new AssertionError(name + " got ids " + other + " and " + id);
+        }
+      });
+    }
+    for (Thread t : threads)
+      t.start();
+    for (Thread t : threads)
+      t.join();
+    assertEquals(seen.size(), table.size());
+    for (Map.Entry<String, Integer> e : seen.entrySet())
+      assertEquals(e.getKey(), table.name(e.getValue()));
+  }
+}
@@ -0,0 +1,88 @@
+package gms.dsa;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+
+// Checked against a TreeMap of key -> values in insertion order
+public class TrieTest {
+  private static String key(Random r) {
+    int n = r.nextInt(7);
+    StringBuilder b = new StringBuilder();
+    for (int i = 0; i < n; i++)
+      b.append((char) ('a' + r.nextInt(3)));
+    return b.toString();
+  }
+
+  private static List<Integer> withPrefix(TreeMap<String, List<Integer>> ref, String prefix, int limit) {
+    List<Integer> out = new java.util.ArrayList<>();
+    for (Map.Entry<String, List<Integer>> e : ref.entrySet()) {
+      if (!e.getKey().startsWith(prefix))
+        continue;
+      for (Integer v : e.getValue()) {
+        if (out.size() == limit)
+          return out;
+        out.add(v);
+      }
+    }
+    return out;
+  }
+
+  @Test
+  public void matchesSortedReference() {
+    Random r = new Random(1);
+    Trie<Integer> trie = new Trie<>();
+    TreeMap<String, List<Integer>> ref = new TreeMap<>();
+    int size = 0;
+    for (int i = 0; i < 100000; i++) {
+      String k = key(r);
+      // Several values per key, more than the threshold for a value set
+      Integer v = r.nextInt(r.nextInt(10) == 0 ? 40 : 3);
+      if (r.nextInt(3) > 0) {
+        List<Integer> vals = ref.computeIfAbsent(k, x -> new java.util.ArrayList<>());
+        boolean added = !vals.contains(v);
+        if (added) {
+          vals.add(v);
+          size++;
+        }
+        assertEquals(added, trie.put(k, v));
+      } else {
+        List<Integer> vals = ref.get(k);
+        boolean removed = vals != null && vals.remove(v);
+        if (vals != null && vals.isEmpty())
+          ref.remove(k);
+        if (removed)
+          size--;
+        assertEquals(removed, trie.remove(k, v));
+      }
+      assertEquals(size, trie.size());
+
+      if (i % 50 == 0) {
+        String p = key(r);
+        p = p.substring(0, r.nextInt(p.length() + 1));
+        int limit = r.nextInt(30);
+        assertEquals(withPrefix(ref, p, limit), new java.util.ArrayList<>(trie.withPrefix(p, limit)));
+      }
+    }
+    trie.clear();
+    assertTrue(trie.isEmpty());
+    assertTrue(trie.withPrefix("", 10).isEmpty());
+  }
+
+  @Test
+  public void visitorCanStopEarly() {
+    Trie<String> trie = new Trie<>();
+    for (String w : new String[] { "ravi", "rahul", "ram", "rani", "zoe" })
+      trie.put(w, w);
+    List<String> seen = new java.util.ArrayList<>();
+    trie.forEachWithPrefix("ra", w -> {
+      seen.add(w);
+      return seen.size() < 2;
+    });
+    assertEquals(java.util.Arrays.asList("rahul", "ram"), seen);
+  }
+}
@@ -0,0 +1,214 @@
+package gms.io;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CSVCursorTest {
+  private Path dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("csv-test");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    SnapshotTest.deleteTree(dir);
+  }
+
+  // Straightforward reference parser over a String: quoted fields may hold
+  // commas, doubled quotes and line breaks, unquoted fields are trimmed, and
+  // an empty line is a row without columns
+  static List<List<String>> parse(String t) {
+    List<List<String>> rows = new java.util.ArrayList<>();
+    int i = 0, n = t.length();
+    while (i < n) {
+      List<String> row = new java.util.ArrayList<>();
+      if (t.charAt(i) == '\n' || t.charAt(i) == '\r') {
+        i += t.startsWith("\r\n", i) ? 2 : 1;
+        rows.add(row);
+        continue;
+      }
+      while (true) {
+        int q = i;
+        while (q < n && t.charAt(q) <= ' ' && t.charAt(q) != '\n' && t.charAt(q) != '\r')
+          q++;
+        if (q < n && t.charAt(q) == '"') {
+          StringBuilder b = new StringBuilder();
+          for (q++; q < n; q++) {
+            char c = t.charAt(q);
+            if (c == '"') {
+              if (!t.startsWith("\"\"", q))
+                break;
+              q++;
+            }
+            b.append(c);
+          }
+          row.add(b.toString());
+          while (q < n && t.charAt(q) != ',' && t.charAt(q) != '\n' && t.charAt(q) != '\r')
+            q++;
+        } else {
+          int start = q;
+          while (q < n && t.charAt(q) != ',' && t.charAt(q) != '\n' && t.charAt(q) != '\r')
+            q++;
+          row.add(t.substring(start, q).trim());
+        }
+        if (q >= n) {
+          i = n;
+          break;
+        }
+        if (t.charAt(q) == ',') {
+          i = q + 1;
+          continue;
+        }
+        i = q + (t.startsWith("\r\n", q) ? 2 : 1);
+        break;
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  private static List<List<String>> rows(CSV.Cursor c) throws IOException {
+    List<List<String>> rows = new java.util.ArrayList<>();
+    while (c.next()) {
+      List<String> row = new java.util.ArrayList<>();
+      for (int i = 0; i < c.columns(); i++) {
+        String s = c.field(i).toString();
+        assertTrue(c.field(i).contentEquals(s));
+        assertEquals(s.length() == 0, c.field(i).isEmpty());
+        row.add(s);
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  private static String random(Random r, int len) {
+    String alphabet = "ab ,\"\n\r;é1.";
+    StringBuilder b = new StringBuilder(len);
+    for (int i = 0; i < len; i++)
+      b.append(alphabet.charAt(r.nextInt(alphabet.length())));
+    return b.toString();
+  }
+
+  @Test
+  public void matchesReferenceParser() throws IOException {
+    for (int seed = 0; seed < 200; seed++) {
+      Random r = new Random(seed);
+      // Past 64 KB the file cursor has to refill and compact its buffer
+      String text = random(r, seed < 150 ? r.nextInt(200) : 70000 + r.nextInt(100000));
+      byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+      List<List<String>> want = parse(text);
+
+      Path f = dir.resolve("t" + seed + ".csv");
+      Files.write(f, bytes);
+      try (CSV.Cursor c = new CSV.Cursor(f.toString())) {
+        assertEquals("seed " + seed, want, rows(c));
+      }
+
+      byte[] padded = new byte[bytes.length + 6];
+      System.arraycopy(bytes, 0, padded, 3, bytes.length);
+      assertEquals("seed " + seed, want, rows(new CSV.Cursor(padded, 3, 3 + bytes.length)));
+    }
+  }
+
+  @Test
+  public void rowLongerThanTheBuffer() throws IOException {
+    StringBuilder b = new StringBuilder("id,\"");
+    for (int i = 0; i < 300000; i++)
+      b.append(i % 10 == 0 ? "\"\"" : "x");
+    b.append("\"\nnext,row\n");
+    Path f = dir.resolve("long.csv");
+    Files.write(f, b.toString().getBytes(StandardCharsets.UTF_8));
+    try (CSV.Cursor c = new CSV.Cursor(f.toString())) {
+      assertEquals(parse(b.toString()), rows(c));
+    }
+  }
+
+  @Test
+  public void numericFieldsMatchTheJdk() throws IOException {
+    Random r = new Random(1);
+    for (int i = 0; i < 50000; i++) {
+      String s;
+      switch (r.nextInt(3)) {
+        case 0:
+          s = Integer.toString(r.nextInt(2000) - 500);
+          break;
+        case 1:
+          s = Double.toString(r.nextInt(10001) / 100.0);
+          break;
+        default:
+          s = Double.toString(r.nextDouble() * Math.pow(10, r.nextInt(30) - 10));
+      }
+      byte[] b = ("x, " + s + " \n").getBytes(StandardCharsets.US_ASCII);
+      CSV.Cursor c = new CSV.Cursor(b, 0, b.length);
+      assertTrue(c.next());
+      assertEquals(s, Double.parseDouble(s), c.field(1).parseDouble(), 0.0);
+      if (s.indexOf('.') < 0 && s.indexOf('E') < 0)
+        assertEquals(s, Integer.parseInt(s), c.field(1).parseInt());
+    }
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void badNumberThrows() throws IOException {
+    byte[] b = "1,x\n".getBytes(StandardCharsets.US_ASCII);
+    CSV.Cursor c = new CSV.Cursor(b, 0, b.length);
+    c.next();
+    c.field(1).parseInt();
+  }
+
+  @Test
+  public void tokensSplitAField() throws IOException {
+    byte[] b = "r,\"1;2.5;;40\"\n".getBytes(StandardCharsets.US_ASCII);
+    CSV.Cursor c = new CSV.Cursor(b, 0, b.length);
+    assertTrue(c.next());
+    CSV.Field values = c.field(1);
+    CSV.Field token = new CSV.Field();
+    List<String> tokens = new java.util.ArrayList<>();
+    values.firstToken(token);
+    while (values.nextToken(';', token))
+      tokens.add(token.toString());
+    assertEquals(java.util.Arrays.asList("1", "2.5", "", "40"), tokens);
+    assertTrue(c.field(0).equalsIgnoreCase("R"));
+    assertFalse(c.next());
+  }
+
+  @Test
+  public void writerOutputReadsBackUnchanged() throws IOException {
+    String[] values = { "plain", "Doe, John", "O\"Brien", "Line\nBreak", "CR\rLF", " spaced ", "" };
+    Path f = dir.resolve("w.csv");
+    try (CSV.Writer w = new CSV.Writer(f.toString())) {
+      w.header("a", "b");
+      for (String v : values)
+        w.row(v, 42);
+      assertTrue(w.ok());
+    }
+    try (CSV.Cursor c = new CSV.Cursor(f.toString())) {
+      assertTrue(c.next());
+      assertEquals("a", c.field(0).toString());
+      for (String v : values) {
+        assertTrue(c.next());
+        assertEquals(2, c.columns());
+        assertEquals(v, c.field(0).toString());
+        assertEquals(42, c.field(1).parseInt());
+      }
+      assertFalse(c.next());
+    }
+    try (CSV.Reader reader = new CSV.Reader(f.toString())) {
+      reader.readRow();
+      for (String v : values)
+        assertEquals(java.util.Arrays.asList(v, "42"), new java.util.ArrayList<>(reader.readRow()));
+      assertNull(reader.readRow());
+    }
+  }
+}
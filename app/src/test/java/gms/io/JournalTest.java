@@ -0,0 +1,249 @@
+package gms.io;
+
+import static org.junit.Assert.*;
+
+import gms.core.Exam;
+import gms.core.Institute;
+import gms.core.Student;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JournalTest {
+  private Path dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("journal-test");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    SnapshotTest.deleteTree(dir);
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      return files.filter(p -> p.getFileName().toString().startsWith("journal-")).sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  private Path lastSegment() throws IOException {
+    List<Path> all = segments();
+    return all.get(all.size() - 1);
+  }
+
+  // A framed record: int len, type, payload, int CRC32(type + payload)
+  private static byte[] record(int type, byte[] payload) {
+    ByteBuffer rec = ByteBuffer.allocate(4 + 1 + payload.length + 4);
+    rec.putInt(1 + payload.length).put((byte) type).put(payload);
+    CRC32 crc = new CRC32();
+    crc.update(rec.array(), 4, 1 + payload.length);
+    rec.putInt((int) crc.getValue());
+    return rec.array();
+  }
+
+  // Builds a journaled institute in `dir` and returns its state after commit
+  private String journaledState(long seed) throws IOException {
+    Institute inst = new Institute();
+    Journal journal = PersistenceManager.recover(inst, dir.toString());
+    assertNotNull(journal);
+    SnapshotTest.populate(inst, seed, 50);
+    Student s = inst.getStudent("REG0");
+    s.setSGPA(1, 9.5);
+    inst.removeStudent("REG1");
+    journal.commit();
+    journal.close();
+    return SnapshotTest.dump(inst);
+  }
+
+  @Test
+  public void replayRebuildsCommittedState() throws IOException {
+    String committed = journaledState(1);
+
+    Institute back = new Institute();
+    Journal journal = PersistenceManager.recover(back, dir.toString());
+    assertNotNull(journal);
+    assertTrue(journal.replayed() > 0);
+    assertEquals(committed, SnapshotTest.dump(back));
+
+    // Uncommitted records are lost on close
+    back.getStudent("REG0").pushMark(1, "Mathematics", Exam.FAT, 12);
+    journal.close();
+    Institute again = new Institute();
+    PersistenceManager.recover(again, dir.toString()).close();
+    assertEquals(committed, SnapshotTest.dump(again));
+  }
+
+  @Test
+  public void tornTailIsCutOffAndAppendsContinue() throws IOException {
+    String committed = journaledState(2);
+    Path seg = lastSegment();
+    long size = Files.size(seg);
+
+    // Half of a record, as left by a crash mid-write, and then a whole record
+    // whose checksum does not match
+    byte[] rec = record(99, "REG0".getBytes(StandardCharsets.UTF_8));
+    for (byte[] tail : new byte[][] { java.util.Arrays.copyOf(rec, rec.length / 2), corrupt(rec) }) {
+      Files.write(seg, tail, StandardOpenOption.APPEND);
+      Institute back = new Institute();
+      Journal journal = PersistenceManager.recover(back, dir.toString());
+      assertNotNull(journal);
+      assertEquals(committed, SnapshotTest.dump(back));
+      assertEquals(size, Files.size(seg));
+      journal.close();
+    }
+
+    // The log carries on from the cut
+    Institute back = new Institute();
+    Journal journal = PersistenceManager.recover(back, dir.toString());
+    back.getStudent("REG0").pushMark(1, "Mathematics", Exam.FAT, 77);
+    journal.commit();
+    journal.close();
+    String extended = SnapshotTest.dump(back);
+    Institute again = new Institute();
+    PersistenceManager.recover(again, dir.toString()).close();
+    assertEquals(extended, SnapshotTest.dump(again));
+  }
+
+  private static byte[] corrupt(byte[] rec) {
+    byte[] copy = rec.clone();
+    copy[copy.length - 1] ^= 1;
+    return copy;
+  }
+
+  @Test
+  public void recordThatCannotBeAppliedFailsRecovery() throws IOException {
+    journaledState(3);
+    Path seg = lastSegment();
+    long before = Files.size(seg);
+    // Count the committed records, so we know the number of the bad one
+    Institute counting = new Institute();
+    Journal journal = PersistenceManager.recover(counting, dir.toString());
+    long bad = journal.sequence();
+    journal.close();
+
+    // Valid framing and checksum, but a record type that does not exist
+    byte[] name = "REG0".getBytes(StandardCharsets.UTF_8);
+    ByteBuffer payload = ByteBuffer.allocate(4 + name.length).putInt(name.length).put(name);
+    Files.write(seg, record(99, payload.array()), StandardOpenOption.APPEND);
+    long size = Files.size(seg);
+    assertTrue(size > before);
+
+    try {
+      Journal.open(dir, new Institute(), 0);
+      fail("recovery went past a record it could not apply");
+    } catch (IOException expected) {
+      assertTrue(expected.getMessage(), expected.getMessage().contains("record " + bad));
+    }
+    // Nothing was cut off: the record and the rest of the log are still there
+    assertEquals(size, Files.size(seg));
+    try {
+      PersistenceManager.recover(new Institute(), dir.toString());
+      fail("recover carried on from a partial replay");
+    } catch (IOException expected) {
+      assertTrue(expected.getMessage(), expected.getMessage().contains("record " + bad));
+    }
+    assertEquals(size, Files.size(seg));
+  }
+
+  // Saving a recovered institute, then recovering again, must not apply any
+  // record twice
+  @Test
+  public void recoverSaveRecoverKeepsEachRecordOnce() throws IOException {
+    String committed = journaledState(6);
+    for (int round = 0; round < 2; round++) {
+      Institute inst = new Institute();
+      Journal journal = PersistenceManager.recover(inst, dir.toString());
+      assertEquals(committed, SnapshotTest.dump(inst));
+      assertTrue(PersistenceManager.saveBinary(inst, dir.toString()));
+      journal.close();
+    }
+    Institute back = new Institute();
+    PersistenceManager.recover(back, dir.toString()).close();
+    assertEquals(committed, SnapshotTest.dump(back));
+
+    // An institute not recording into the segments cannot checkpoint over them
+    Institute detached = new Institute();
+    SnapshotTest.populate(detached, 7, 5);
+    assertFalse(PersistenceManager.saveBinary(detached, dir.toString()));
+    assertFalse(PersistenceManager.saveCSV(detached, dir.toString()));
+    Institute again = new Institute();
+    PersistenceManager.recover(again, dir.toString()).close();
+    assertEquals(committed, SnapshotTest.dump(again));
+  }
+
+  // An unreadable snapshot stops recovery rather than starting empty
+  @Test
+  public void unreadableSnapshotFailsRecovery() throws IOException {
+    journaledState(8);
+    Institute inst = new Institute();
+    Journal journal = PersistenceManager.recover(inst, dir.toString());
+    assertTrue(PersistenceManager.saveBinary(inst, dir.toString()));
+    journal.close();
+
+    Path file = dir.resolve(PersistenceManager.SNAPSHOT);
+    byte[] bytes = Files.readAllBytes(file);
+    bytes[bytes.length / 2] ^= 1;
+    Files.write(file, bytes);
+    try {
+      PersistenceManager.recover(new Institute(), dir.toString());
+      fail("recovered from a corrupt snapshot");
+    } catch (IOException expected) {
+      assertTrue(expected.getMessage(), expected.getMessage().contains("checksum"));
+    }
+    assertArrayEquals(bytes, Files.readAllBytes(file));
+  }
+
+  @Test
+  public void checkpointDropsCoveredSegments() throws IOException {
+    Institute inst = new Institute();
+    Journal journal = PersistenceManager.recover(inst, dir.toString());
+    CheckpointManager checkpoints = new CheckpointManager(inst, dir.toString(), journal, 1, Long.MAX_VALUE);
+    SnapshotTest.populate(inst, 4, 40);
+    journal.commit();
+    assertTrue(checkpoints.due());
+    assertTrue(checkpoints.maybeCheckpoint());
+    checkpoints.awaitIdle();
+    assertEquals(1, checkpoints.checkpoints());
+    assertTrue(PersistenceManager.hasBinary(dir.toString()));
+    assertEquals(1, segments().size());
+
+    // Records after the checkpoint are replayed on top of the snapshot
+    inst.getStudent("REG2").pushMark(1, "Physics", Exam.CAT2, 55);
+    journal.commit();
+    checkpoints.close();
+    journal.close();
+    String committed = SnapshotTest.dump(inst);
+
+    Institute back = new Institute();
+    Journal reopened = PersistenceManager.recover(back, dir.toString());
+    assertEquals(1, reopened.replayed());
+    assertEquals(committed, SnapshotTest.dump(back));
+    reopened.close();
+  }
+
+  @Test
+  public void deleteAllLeavesNothingToRecover() throws IOException {
+    journaledState(5);
+    Institute inst = new Institute();
+    Journal journal = PersistenceManager.recover(inst, dir.toString());
+    assertTrue(PersistenceManager.deleteAll(dir.toString(), journal));
+    journal.close();
+
+    Institute back = new Institute();
+    PersistenceManager.recover(back, dir.toString()).close();
+    assertTrue(back.empty());
+  }
+}
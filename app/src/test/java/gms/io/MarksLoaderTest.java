@@ -0,0 +1,58 @@
+package gms.io;
+
+import static org.junit.Assert.*;
+
+import gms.core.Exam;
+import gms.core.Institute;
+import gms.core.Student;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MarksLoaderTest {
+  private Path dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("marks-loader-test");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    SnapshotTest.deleteTree(dir);
+  }
+
+  @Test
+  public void marksLoaderMatchesAnyParallelism() throws IOException {
+    Institute inst = new Institute();
+    SnapshotTest.populate(inst, 5, 400);
+    assertTrue(PersistenceManager.saveCSV(inst, dir.toString()));
+    Path marks = dir.resolve("marks.csv");
+    for (int parallelism : new int[] { 1, 2, 4 }) {
+      Institute back = new Institute();
+      assertTrue(PersistenceManager.loadCSV(back, dir.toString()));
+      // Load the marks a second time on top: every history doubles in order
+      Institute twice = new Institute();
+      assertTrue(PersistenceManager.loadCSV(twice, dir.toString()));
+      MarksLoader.load(twice, marks, parallelism);
+      inst.forEachRanked(s -> {
+        Student t = twice.getStudent(s.id());
+        for (int sem = 1; sem <= s.semester(); sem++) {
+          for (String sub : s.listSubjects(sem)) {
+            for (Exam ex : Exam.values()) {
+              List<Double> once = s.marksHistory(sem, sub, ex);
+              List<Double> want = new java.util.ArrayList<>(once);
+              want.addAll(once);
+              assertEquals(want, new java.util.ArrayList<>(t.marksHistory(sem, sub, ex)));
+            }
+          }
+        }
+      });
+      assertEquals(SnapshotTest.dump(inst), SnapshotTest.dump(back));
+    }
+  }
+}
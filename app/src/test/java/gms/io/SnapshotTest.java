@@ -0,0 +1,157 @@
+package gms.io;
+
+import static org.junit.Assert.*;
+
+import gms.core.Exam;
+import gms.core.Institute;
+import gms.core.Student;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SnapshotTest {
+  private static final String[] SUBJECTS = { "Mathematics", "Physics", "Art, Modern", "Chemistry", "O\"Level" };
+  private static final String[] NAMES = { "Ravi Kumar", "Doe, John", "O\"Brien", "Line\nBreak", " spaced ", "Anu" };
+
+  private Path dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("snapshot-test");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    deleteTree(dir);
+  }
+
+  static void deleteTree(Path root) throws IOException {
+    try (Stream<Path> files = Files.walk(root)) {
+      for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+        Files.delete(p);
+    }
+  }
+
+  // Random students with names and subjects that need CSV quoting, mark
+  // histories with rollbacks, finalized semesters and promotions
+  static void populate(Institute inst, long seed, int students) {
+    Random r = new Random(seed);
+    inst.setCurrentSemester(1 + r.nextInt(3));
+    inst.setCat1Done(r.nextBoolean());
+    inst.setFatDone(r.nextBoolean());
+    for (int i = 0; i < students; i++) {
+      Student s = new Student("REG" + i, NAMES[r.nextInt(NAMES.length)] + i);
+      inst.addStudent(s);
+      int sems = 1 + r.nextInt(3);
+      for (int sem = 1; sem <= sems; sem++) {
+        for (String sub : SUBJECTS) {
+          if (r.nextInt(4) == 0)
+            continue;
+          s.addSubject(sem, sub);
+          for (Exam ex : Exam.values()) {
+            int marks = r.nextInt(4);
+            for (int k = 0; k < marks; k++)
+              s.pushMark(sem, sub, ex, r.nextInt(10001) / 100.0);
+            if (r.nextInt(5) == 0)
+              s.rollbackMark(sem, sub, ex);
+          }
+        }
+        if (sem < sems) {
+          s.calculateSGPA(sem);
+          s.promoteOneSemester();
+        }
+      }
+    }
+  }
+
+  // Everything saved about an institute, as text
+  static String dump(Institute inst) {
+    StringBuilder b = new StringBuilder();
+    b.append(inst.currentSemester()).append(inst.isCat1Done()).append(inst.isCat2Done())
+        .append(inst.isFatDone()).append('\n');
+    inst.forEachRanked(s -> {
+      b.append(s.id()).append('|').append(s.name()).append('|').append(s.semester()).append('|')
+          .append(s.getCGPA()).append('\n');
+      for (int sem = 1; sem <= s.semester(); sem++) {
+        if (s.hasSGPA(sem))
+          b.append("  sgpa ").append(sem).append(' ').append(s.getSGPA(sem)).append('\n');
+        for (String sub : s.listSubjects(sem)) {
+          b.append("  ").append(sem).append(' ').append(sub);
+          for (Exam ex : Exam.values())
+            b.append(" | ").append(new java.util.ArrayList<>(s.marksHistory(sem, sub, ex)));
+          b.append('\n');
+        }
+      }
+    });
+    return b.toString();
+  }
+
+  @Test
+  public void binaryRoundTripIsExact() throws IOException {
+    Institute inst = new Institute();
+    populate(inst, 1, 300);
+    Path file = dir.resolve(PersistenceManager.SNAPSHOT);
+    Snapshot.write(inst, file, 1234);
+
+    Institute back = new Institute();
+    assertEquals(1234, Snapshot.read(back, file));
+    assertEquals(dump(inst), dump(back));
+    assertEquals(inst.size(), back.size());
+    // The rank index is rebuilt to the same order
+    for (int rank = 1; rank <= inst.size(); rank++) {
+      String id = inst.studentAtRank(rank).id();
+      assertSame(back.getStudent(id), back.studentAtRank(rank));
+      assertEquals(rank, back.rankOf(id));
+    }
+  }
+
+  @Test
+  public void csvRoundTripIsExact() {
+    Institute inst = new Institute();
+    populate(inst, 2, 300);
+    assertTrue(PersistenceManager.saveCSV(inst, dir.toString()));
+
+    Institute back = new Institute();
+    assertTrue(PersistenceManager.loadCSV(back, dir.toString()));
+    assertEquals(dump(inst), dump(back));
+  }
+
+  @Test
+  public void csvAndBinaryConvertIntoEachOther() {
+    Institute inst = new Institute();
+    populate(inst, 3, 100);
+    assertTrue(PersistenceManager.saveCSV(inst, dir.toString()));
+    assertTrue(PersistenceManager.csvToBinary(dir.toString()));
+    assertTrue(PersistenceManager.deleteCSV(dir.toString()));
+    assertTrue(PersistenceManager.binaryToCSV(dir.toString()));
+
+    Institute back = new Institute();
+    assertTrue(PersistenceManager.loadCSV(back, dir.toString()));
+    assertEquals(dump(inst), dump(back));
+  }
+
+  @Test
+  public void corruptSnapshotIsRejected() throws IOException {
+    Institute inst = new Institute();
+    populate(inst, 4, 20);
+    Path file = dir.resolve(PersistenceManager.SNAPSHOT);
+    Snapshot.write(inst, file, 0);
+
+    byte[] bytes = Files.readAllBytes(file);
+    bytes[bytes.length / 2] ^= 1;
+    Files.write(file, bytes);
+    try {
+      Snapshot.read(new Institute(), file);
+      fail("a flipped bit was not detected");
+    } catch (IOException expected) {
+      assertTrue(expected.getMessage(), expected.getMessage().contains("checksum"));
+    }
+    assertFalse(PersistenceManager.loadBinary(new Institute(), dir.toString()));
+  }
+}